@@ -0,0 +1,106 @@
+package com.example.testdnd;
+
+import java.util.Arrays;
+
+/**
+ * 자식 뷰들의 너비를 Fenwick tree(binary indexed tree)로 관리하는 누적합 인덱스.
+ *
+ * 한 자식의 너비가 바뀌면 O(log n)에 갱신되고, 특정 x 좌표에 있는 자식의 index도 O(log n)에 찾는다.
+ * 스크롤할 때마다 처음부터 너비를 더해가며 보이는 아이템을 찾는 대신 사용한다.
+ */
+final class ChildWidthIndex {
+	/** 1부터 시작하는 Fenwick tree */
+	private int[] tree = new int[1];
+
+	/** 각 자식의 현재 너비 */
+	private int[] widths = new int[0];
+
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(tree, 0);
+		Arrays.fill(widths, 0);
+		size = 0;
+	}
+
+	/**
+	 * 맨 뒤에 자식을 추가한다.
+	 */
+	void add(int width) {
+		ensureCapacity(size + 1);
+
+		size++;
+		widths[size - 1] = 0;
+		tree[size] = 0;
+
+		// 새 노드가 담당하는 구간의 합을 채운다. tree[i]는 (i - lowbit(i), i] 구간의 합이다.
+		int lowBit = size & -size;
+		for (int child = 1; child < lowBit; child <<= 1) {
+			tree[size] += tree[size - child];
+		}
+
+		set(size - 1, width);
+	}
+
+	/**
+	 * index번째 자식의 너비를 바꾼다.
+	 */
+	void set(int index, int width) {
+		int delta = width - widths[index];
+		if (delta == 0) {
+			return;
+		}
+
+		widths[index] = width;
+		for (int i = index + 1; i <= size; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	int get(int index) {
+		return widths[index];
+	}
+
+	/**
+	 * @return 0 ~ count-1 번째 자식들의 너비 합. 즉 count번째 자식의 left
+	 */
+	int sum(int count) {
+		int sum = 0;
+		for (int i = Math.min(count, size); i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return 0 ~ index 번째 자식들의 너비 합이 x 이상이 되는 가장 작은 index. 없으면 size
+	 */
+	int lowerBound(int x) {
+		int pos = 0;
+		int remaining = x;
+
+		for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+			int next = pos + step;
+			if (next <= size && tree[next] < remaining) {
+				pos = next;
+				remaining -= tree[next];
+			}
+		}
+
+		return pos;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= widths.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, widths.length * 2 + 16);
+		widths = Arrays.copyOf(widths, newCapacity);
+		tree = Arrays.copyOf(tree, newCapacity + 1);
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.testdnd;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 모든 자식을 같은 간격(stride)으로 가로로 늘어놓는 컨테이너. VisibleChildDetectableHorizontalScrollView의 fixed-width 모드에서 쓴다.
+ *
+ * 자식의 위치는 marginLeft + index * stride로 바로 계산하고, 자식의 너비는 항상 stride로 고정한다.
+ * 그래서 한 자식의 크기가 바뀌어도 다른 자식의 위치나 전체 너비는 바뀌지 않으므로,
+ * 레이아웃을 다시 할 때 requestLayout()을 부른 자식만 다시 measure, layout한다.
+ * LinearLayout처럼 매번 모든 자식을 측정하지 않는다.
+ */
+final class FixedStrideLayout extends ViewGroup {
+	private int stride;
+	private int marginLeft;
+
+	/** 마지막으로 자식을 측정할 때 쓴 높이 spec. 바뀌면 모든 자식을 다시 측정한다. */
+	private int lastHeightMeasureSpec = -1;
+
+	FixedStrideLayout(Context context, int stride, int marginLeft) {
+		super(context);
+		this.stride = stride;
+		this.marginLeft = marginLeft;
+	}
+
+	void setStride(int stride, int marginLeft) {
+		if (this.stride == stride && this.marginLeft == marginLeft) {
+			return;
+		}
+
+		this.stride = stride;
+		this.marginLeft = marginLeft;
+		lastHeightMeasureSpec = -1;
+		requestLayout();
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		final int count = getChildCount();
+		final boolean measureAll = heightMeasureSpec != lastHeightMeasureSpec;
+		lastHeightMeasureSpec = heightMeasureSpec;
+
+		final int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(stride, MeasureSpec.EXACTLY);
+		int maxHeight = 0;
+
+		for (int i = 0; i < count; i++) {
+			final View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+
+			if (measureAll || child.isLayoutRequested()) {
+				int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+					getPaddingTop() + getPaddingBottom(), child.getLayoutParams().height);
+				child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+			}
+
+			maxHeight = Math.max(maxHeight, child.getMeasuredHeight());
+		}
+
+		int width = marginLeft + count * stride + getPaddingLeft() + getPaddingRight();
+		int height = maxHeight + getPaddingTop() + getPaddingBottom();
+
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		final int count = getChildCount();
+		final int top = getPaddingTop();
+
+		for (int i = 0; i < count; i++) {
+			final View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+
+			// 자식이 빠지거나 끼어들면 뒤쪽 자식들의 위치가 바뀌므로 위치도 같이 확인한다.
+			int left = getPaddingLeft() + marginLeft + i * stride;
+			if (changed || child.isLayoutRequested() || child.getLeft() != left) {
+				child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+			}
+		}
+	}
+
+	@Override
+	protected LayoutParams generateDefaultLayoutParams() {
+		return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+	}
+}
@@ -1,9 +1,12 @@
 package com.example.testdnd;
 
+import java.io.File;
 import java.util.LinkedList;
 
 import android.app.Activity;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,17 +15,28 @@ import android.widget.Gallery;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import com.example.testdnd.dnd.BatchReorder;
 import com.example.testdnd.dnd.DragLayer;
 import com.example.testdnd.dnd.DragSource;
 import com.example.testdnd.dnd.HDragController;
 import com.example.testdnd.dnd.ImageCell;
+import com.example.testdnd.image.BitmapPool;
+import com.example.testdnd.image.ThumbnailDiskCache;
+import com.example.testdnd.image.ThumbnailLoader;
+
+public class MainActivity extends Activity implements View.OnLongClickListener, HDragController.OnItemsMovedListener {
+	/** 앱이 쓸 수 있는 최대 메모리 중 썸네일 비트맵 풀에 쓸 비율 */
+	private static final int THUMBNAIL_POOL_DIVIDER = 32;
+
+	/** 디스크에 저장해 둘 썸네일의 최대 크기 */
+	private static final long THUMBNAIL_DISK_CACHE_SIZE = 20 * 1024 * 1024;
 
-public class MainActivity extends Activity implements View.OnLongClickListener {
 	private Gallery gallery;
 	private LinkedList<Item> itemList;
 	private GalleryAdapter adapter;
 	private HDragController dragController;
 	private DragLayer dragLayer;
+	private ThumbnailLoader thumbnailLoader;
 
 	private VisibleChildDetectableHorizontalScrollView hScrollView;
 
@@ -34,6 +48,7 @@ public class MainActivity extends Activity implements View.OnLongClickListener {
 		setContentView(R.layout.activity_main);
 
 		initData();
+		initThumbnailLoader();
 		//		initGallery();
 		initHorizontalScrollView();
 		//		initDragLayer();
@@ -48,6 +63,28 @@ public class MainActivity extends Activity implements View.OnLongClickListener {
 		}
 	}
 
+	private void initThumbnailLoader() {
+		this.thumbnailLoader = new ThumbnailLoader(getResources().getDimensionPixelSize(R.dimen.npa_order_change_photo_original_size));
+
+		// 스크롤하면서 썸네일마다 비트맵을 새로 할당하지 않도록 캐시에서 빠진 비트맵을 다시 쓴다.
+		thumbnailLoader.setBitmapPool(new BitmapPool((int)(Runtime.getRuntime().maxMemory() / THUMBNAIL_POOL_DIVIDER)));
+
+		// 다시 열 때 원본을 디코딩하지 않도록 줄인 썸네일을 디스크에 둔다. 파일은 디코딩 스레드에서 처음 쓰일 때 열린다.
+		File directory = new File(getCacheDir(), "thumbnails");
+		thumbnailLoader.setDiskCache(new ThumbnailDiskCache(directory, getThumbnailVersion(), THUMBNAIL_DISK_CACHE_SIZE));
+	}
+
+	/**
+	 * 지금은 리소스 ID를 key로 쓰는데, 리소스 ID는 빌드마다 바뀔 수 있으므로 앱이 설치, 업데이트될 때마다 디스크의 썸네일을 버린다.
+	 */
+	private long getThumbnailVersion() {
+		try {
+			return getPackageManager().getPackageInfo(getPackageName(), 0).lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			return 0;
+		}
+	}
+
 	private void initGallery() {
 		//		this.gallery = (Gallery)findViewById(R.id.gallery);
 		//		this.dragLayer = (DragLayer)findViewById(R.id.dragLayer);
@@ -60,13 +97,25 @@ public class MainActivity extends Activity implements View.OnLongClickListener {
 		//		gallery.setAdapter(adapter);
 	}
 
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		thumbnailLoader.shutdown();
+	}
+
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		thumbnailLoader.clearCache();
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		getMenuInflater().inflate(R.menu.activity_main, menu);
 		return true;
 	}
 
-	class GalleryAdapter extends BaseAdapter {
+	class GalleryAdapter extends BaseAdapter implements VisibleChildDetectableHorizontalScrollView.ItemRemovableAdapter {
 		public GalleryAdapter() {
 			super();
 		}
@@ -87,34 +136,32 @@ public class MainActivity extends Activity implements View.OnLongClickListener {
 		}
 
 		@Override
-		public View getView(int position, View convertView, ViewGroup parent) {
-			View view = View.inflate(parent.getContext(), R.layout.list_item_cell, null);
-			ImageCell imageCell = (ImageCell)view.findViewById(R.id.npa_myalbum_photolist_order_change_image);
-
-			imageCell.cellNumber = position;
-			imageCell.empty = false;
-
-			imageCell.setDragController(dragController);
-
-			imageCell.setOnLongClickListener(MainActivity.this);
-
-			// 드래그중일때는 드래그를 시작한 source는 안 보이는 상태로 있어야 한다. view가 재활용되기 때문 필요
-			if (dragController.mDragging) {
-				int dragSourcePosition = dragController.mDragInfo != null ? (Integer)dragController.mDragInfo : -1;
-				if (dragSourcePosition != -1) {
-					if (dragSourcePosition == position) {
-						imageCell.setVisibility(View.INVISIBLE);
-
-						((View)imageCell.getParent()).setVisibility(View.INVISIBLE);
-					} else {
-						imageCell.setVisibility(View.VISIBLE);
+		public void removeItem(int position) {
+			itemList.remove(position);
+			notifyDataSetChanged();
+		}
 
-						((View)imageCell.getParent()).setVisibility(View.VISIBLE);
-					}
-				}
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent) {
+			View view = convertView;
+			ImageCell imageCell;
+
+			if (view == null) {
+				// 감싸는 레이아웃 없이 셀이 간격, placeholder, 이미지, 테두리를 한 번에 그린다.
+				imageCell = (ImageCell)LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_cell_flat, parent, false);
+				imageCell.setSinglePassRendering(true);
+				imageCell.setGutterColor(getResources().getColor(R.color.npa_order_change_strip_background));
+				view = imageCell;
+
+				imageCell.setDragController(dragController);
+				imageCell.setThumbnailLoader(thumbnailLoader);
+
+				imageCell.setOnLongClickListener(MainActivity.this);
+			} else {
+				imageCell = (ImageCell)view;
 			}
 
-			dragController.addDropTarget(position, imageCell);
+			bindCell(imageCell, position);
 
 			return view;
 
@@ -183,63 +230,81 @@ public class MainActivity extends Activity implements View.OnLongClickListener {
 	public boolean startDrag(View view) {
 		DragSource dragSource = (DragSource)view;
 
-		Integer position = new Integer(((ImageCell)view).cellNumber);
+		int position = ((ImageCell)view).cellNumber;
 
 		dragController.startDrag(view, dragSource, position, HDragController.DRAG_ACTION_MOVE);
 
 		return true;
 	}
 
-	private void initHorizontalScrollView() {
+	/**
+	 * position의 아이템을 셀에 바인딩한다. 셀이 재활용되거나 순서가 바뀌었을 때도 사용한다.
+	 */
+	private void bindCell(ImageCell imageCell, int position) {
+		imageCell.cellNumber = position;
+		imageCell.empty = false;
 
-		this.hScrollView = (VisibleChildDetectableHorizontalScrollView)findViewById(R.id.scrollView);
-		//		this.innerLayout = (LinearLayout)hScrollView.findViewById(R.id.linearLayout);
-
-		this.dragLayer = (DragLayer)findViewById(R.id.dragLayer);
-		this.dragController = new HDragController(this, hScrollView);
-
-		dragLayer.setDragController(dragController);
-		dragController.setDragListener(dragLayer);
+		// 재활용된 셀이 이전 position의 썸네일을 기다리고 있었으면 그 요청은 취소된다.
+		thumbnailLoader.loadResource(imageCell, getResources(), itemList.get(position).getResId());
+		imageCell.setSelected(dragController.isSelected(position));
 
-		for (int i = 0; i < itemList.size(); i++) {
-			Item item = itemList.get(i);
+		// 강조된 채로 재활용된 셀이 다른 position에서 강조되어 보이지 않도록 한다.
+		imageCell.changeToInitialShape();
 
-			//			View view = View.inflate(this, R.layout.list_item_gallery, null);
-			//
-			//			Holder holder = Holder.newHolder(view);
-			//			holder.image.setImageResource(item.getResId());
-			//			holder.text.setText(item.getName());
+		// live reorder로 밀려나 있던 셀이 재활용되어도 이 position에 맞는 자리에 놓이도록 한다.
+		dragController.bindLiveReorderTranslation(imageCell, position);
 
-			View view = View.inflate(this, R.layout.list_item_cell, null);
-			ImageCell imageCell = (ImageCell)view.findViewById(R.id.npa_myalbum_photolist_order_change_image);
+		// 드래그중일때는 드래그되는 아이템들은 안 보이는 상태로 있어야 한다. view가 재활용되기 때문 필요
+		// 드래그 중에 숨겨진 채로 재활용된 view도 있으므로 드래그중이 아닐 때도 다시 보이게 한다.
+		int visibility = dragController.mDragging && dragController.isDraggedPosition(position) ? View.INVISIBLE : View.VISIBLE;
 
-			imageCell.cellNumber = i;
-			imageCell.empty = false;
+		imageCell.setVisibility(visibility);
 
-			imageCell.setDragController(dragController);
+		imageCell.getCellView().setVisibility(visibility);
 
-			imageCell.setOnLongClickListener(this);
+		dragController.addDropTarget(position, imageCell);
+	}
 
-			// 드래그중일때는 드래그를 시작한 source는 안 보이는 상태로 있어야 한다. view가 재활용되기 때문 필요
-			if (dragController.mDragging) {
-				int dragSourcePosition = dragController.mDragInfo != null ? (Integer)dragController.mDragInfo : -1;
-				if (dragSourcePosition != -1) {
-					if (dragSourcePosition == i) {
-						imageCell.setVisibility(View.INVISIBLE);
+	/**
+	 * 드롭된 아이템들을 한 번에 옮기고, 순서가 바뀐 범위 중 화면에 만들어져 있는 셀만 다시 바인딩한다.
+	 * 만들어져 있지 않은 셀은 나중에 화면에 들어올 때 바인딩된다.
+	 * 셀의 크기는 바뀌지 않으므로 레이아웃은 다시 하지 않는다.
+	 */
+	@Override
+	public void onItemsMoved(int[] positions, int count, int targetPosition) {
+		int from = Math.min(positions[0], targetPosition);
+		int to = Math.max(positions[count - 1], BatchReorder.getBlockStart(itemList.size(), count, targetPosition) + count - 1);
 
-						((View)imageCell.getParent()).setVisibility(View.INVISIBLE);
-					} else {
-						imageCell.setVisibility(View.VISIBLE);
+		BatchReorder.moveAll(itemList, positions, count, targetPosition);
 
-						((View)imageCell.getParent()).setVisibility(View.VISIBLE);
-					}
-				}
+		for (int i = from; i <= to && i < hScrollView.getItemCount(); i++) {
+			View view = hScrollView.getViewForPosition(i);
+			if (view == null) {
+				continue;
 			}
 
-			dragController.addDropTarget(i, imageCell);
+			ImageCell imageCell = (ImageCell)view.findViewById(R.id.npa_myalbum_photolist_order_change_image);
 
-			hScrollView.addChild(view);
-			//			innerLayout.addView(view);
+			bindCell(imageCell, i);
 		}
 	}
+
+	private void initHorizontalScrollView() {
+
+		this.hScrollView = (VisibleChildDetectableHorizontalScrollView)findViewById(R.id.scrollView);
+		//		this.innerLayout = (LinearLayout)hScrollView.findViewById(R.id.linearLayout);
+
+		this.dragLayer = (DragLayer)findViewById(R.id.dragLayer);
+		this.dragController = new HDragController(this, hScrollView);
+
+		dragLayer.setDragController(dragController);
+		dragController.setDragListener(dragLayer);
+		dragController.setDragLayer(dragLayer);
+		dragController.setOnItemsMovedListener(this);
+		dragController.setLiveReorderEnabled(true);
+
+		// 화면에 보이는 셀만 만들고 스크롤될 때 재활용한다.
+		this.adapter = new GalleryAdapter();
+		hScrollView.setAdapter(adapter);
+	}
 }
@@ -0,0 +1,351 @@
+package com.example.testdnd;
+
+import java.util.ArrayList;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Adapter;
+
+/**
+ * VisibleChildDetectableHorizontalScrollView의 adapter 모드에서 쓰는 내부 컨테이너.
+ *
+ * 아이템 수 * 아이템 너비만큼의 너비를 가져서 스크롤 범위는 전체 앨범 크기와 같지만,
+ * 실제 자식 뷰는 화면에 보이는 아이템과 양쪽으로 BUFFER_ITEM_COUNT개씩만 만든다.
+ * 화면 밖으로 나간 뷰는 scrap에 넣어 두었다가 새로 보이는 position의 convertView로 다시 쓴다.
+ *
+ * 모든 아이템의 크기가 같다고 가정하고, 첫 번째 아이템을 측정한 크기를 사용한다.
+ *
+ * addChildView()로 넣은 뷰는 adapter의 아이템 뒤에 붙는 아이템이 된다. 이 뷰들은 호출한 쪽의 뷰이므로 재활용하지 않는다.
+ */
+final class RecyclingStripLayout extends ViewGroup {
+	/** 화면 양쪽으로 미리 만들어 둘 아이템 수 */
+	private static final int BUFFER_ITEM_COUNT = 2;
+
+	private Adapter adapter;
+	private int adapterCount;
+
+	/** adapterCount + addedViews.size() */
+	private int itemCount;
+
+	/** addChildView()로 넣은 뷰들. adapter의 아이템 뒤에 순서대로 놓인다. */
+	private final ArrayList<View> addedViews = new ArrayList<View>();
+
+	/** 측정된 아이템 크기. 0이면 아직 측정되지 않았다. */
+	private int itemWidth;
+	private int itemHeight;
+
+	/** activeViews의 첫 번째 뷰의 position */
+	private int firstPosition;
+
+	/** 지금 붙어 있는 뷰들. position 순서대로 들어 있다. */
+	private final ArrayList<View> activeViews = new ArrayList<View>();
+
+	/** 화면 밖으로 나가서 다시 쓰일 뷰들 */
+	private final ArrayList<View> scrapViews = new ArrayList<View>();
+
+	private final DataSetObserver dataSetObserver = new DataSetObserver() {
+		@Override
+		public void onChanged() {
+			onDataSetChanged();
+		}
+
+		@Override
+		public void onInvalidated() {
+			onDataSetChanged();
+		}
+	};
+
+	RecyclingStripLayout(Context context) {
+		super(context);
+	}
+
+	void setAdapter(Adapter adapter) {
+		if (this.adapter != null) {
+			this.adapter.unregisterDataSetObserver(dataSetObserver);
+		}
+
+		recycleAll();
+		scrapViews.clear();
+		addedViews.clear();
+
+		this.adapter = adapter;
+		this.adapterCount = adapter != null ? adapter.getCount() : 0;
+		this.itemCount = adapterCount;
+		this.itemWidth = 0;
+		this.itemHeight = 0;
+
+		if (adapter != null) {
+			adapter.registerDataSetObserver(dataSetObserver);
+		}
+
+		requestLayout();
+	}
+
+	Adapter getAdapter() {
+		return adapter;
+	}
+
+	int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * @return 아이템 너비. 아직 측정되지 않았으면 0
+	 */
+	int getItemWidth() {
+		return itemWidth;
+	}
+
+	/**
+	 * @return position에 바인딩되어 붙어 있는 뷰. 화면 밖이라 만들어지지 않은 position이면 null
+	 */
+	View getViewForPosition(int position) {
+		int index = position - firstPosition;
+		if (index < 0 || index >= activeViews.size()) {
+			return null;
+		}
+
+		return activeViews.get(index);
+	}
+
+	/**
+	 * child를 마지막 아이템으로 붙인다. 아이템 크기는 adapter의 아이템과 같게 맞춰진다.
+	 */
+	void addChildView(View child) {
+		addedViews.add(child);
+		itemCount++;
+
+		requestLayout();
+	}
+
+	/**
+	 * 붙어 있는 뷰 child가 보여주는 아이템을 뺀다.
+	 * addChildView()로 넣은 뷰면 바로 빼고, adapter의 아이템이면 ItemRemovableAdapter에게 데이터에서 빼도록 넘긴다.
+	 *
+	 * @return 뺐으면 true. child가 붙어 있지 않거나 adapter가 아이템을 뺄 수 없으면 false
+	 */
+	boolean removeItemForView(View child) {
+		int index = activeViews.indexOf(child);
+		if (index < 0) {
+			return false;
+		}
+
+		int position = firstPosition + index;
+		if (position >= adapterCount) {
+			// 뺄 뷰가 scrap으로 가지 않도록 addedViews에 있는 동안 모두 떼어 두고, 다음 레이아웃에서 다시 채운다.
+			recycleAll();
+			addedViews.remove(position - adapterCount);
+			itemCount--;
+
+			requestLayout();
+			invalidate();
+			return true;
+		}
+
+		if (!(adapter instanceof VisibleChildDetectableHorizontalScrollView.ItemRemovableAdapter)) {
+			return false;
+		}
+
+		// 데이터가 바뀌면 adapter가 notifyDataSetChanged()로 알려 주고, onDataSetChanged()에서 다시 바인딩된다.
+		((VisibleChildDetectableHorizontalScrollView.ItemRemovableAdapter)adapter).removeItem(position);
+		return true;
+	}
+
+	/**
+	 * 부모의 현재 스크롤 위치에 맞게 뷰를 만들거나 재활용한다. 스크롤될 때마다 불린다.
+	 */
+	void fillViewport() {
+		View parent = (View)getParent();
+		if (parent == null) {
+			return;
+		}
+
+		if (fill(parent.getScrollX(), parent.getWidth())) {
+			invalidate();
+		}
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		ensureItemSize();
+
+		setMeasuredDimension(itemCount * itemWidth, resolveSize(itemHeight, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		for (int i = 0; i < activeViews.size(); i++) {
+			measureAndLayout(activeViews.get(i), firstPosition + i);
+		}
+
+		fillViewport();
+	}
+
+	@Override
+	protected LayoutParams generateDefaultLayoutParams() {
+		return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+	}
+
+	/**
+	 * scrollX에서 width만큼의 영역과 버퍼에 해당하는 position만 뷰를 가지도록 한다.
+	 *
+	 * @return 붙어 있는 뷰가 바뀌었으면 true
+	 */
+	private boolean fill(int scrollX, int width) {
+		if (adapter == null || itemCount <= 0 || itemWidth <= 0 || width <= 0) {
+			return false;
+		}
+
+		final int first = Math.max(0, scrollX / itemWidth - BUFFER_ITEM_COUNT);
+		final int last = Math.min(itemCount - 1, (scrollX + width - 1) / itemWidth + BUFFER_ITEM_COUNT);
+		boolean changed = false;
+
+		int activeLast = firstPosition + activeViews.size() - 1;
+		if (activeViews.isEmpty() || first > activeLast || last < firstPosition) {
+			// 크게 점프했으면 전부 재활용하고 새로 채운다.
+			changed = !activeViews.isEmpty();
+			recycleAll();
+			firstPosition = first;
+		} else {
+			while (firstPosition < first) {
+				recycle(activeViews.remove(0));
+				firstPosition++;
+				changed = true;
+			}
+			while (firstPosition + activeViews.size() - 1 > last) {
+				recycle(activeViews.remove(activeViews.size() - 1));
+				changed = true;
+			}
+		}
+
+		while (firstPosition > first) {
+			firstPosition--;
+			activeViews.add(0, obtainView(firstPosition, 0));
+			changed = true;
+		}
+		while (firstPosition + activeViews.size() - 1 < last) {
+			activeViews.add(obtainView(firstPosition + activeViews.size(), -1));
+			changed = true;
+		}
+
+		return changed;
+	}
+
+	/**
+	 * position의 뷰를 adapter에서 받아서 붙인다. scrap에 뷰가 있으면 convertView로 넘긴다.
+	 * addChildView()로 넣은 아이템이면 그 뷰를 그대로 붙인다.
+	 */
+	private View obtainView(int position, int index) {
+		View child = getItemView(position, null);
+
+		LayoutParams params = child.getLayoutParams();
+		if (params == null) {
+			params = generateDefaultLayoutParams();
+		}
+
+		addViewInLayout(child, index, params, true);
+		measureAndLayout(child, position);
+
+		return child;
+	}
+
+	/**
+	 * @param convertView adapter에게 넘길 뷰. null이면 scrap에서 꺼낸다.
+	 */
+	private View getItemView(int position, View convertView) {
+		if (position >= adapterCount) {
+			return addedViews.get(position - adapterCount);
+		}
+
+		View scrap = convertView;
+		if (scrap == null && !scrapViews.isEmpty()) {
+			scrap = scrapViews.remove(scrapViews.size() - 1);
+		}
+
+		return adapter.getView(position, scrap, this);
+	}
+
+	private void recycle(View child) {
+		removeViewInLayout(child);
+		if (!addedViews.contains(child)) {
+			scrapViews.add(child);
+		}
+	}
+
+	private void recycleAll() {
+		for (int i = 0; i < activeViews.size(); i++) {
+			recycle(activeViews.get(i));
+		}
+		activeViews.clear();
+		firstPosition = 0;
+	}
+
+	private void measureAndLayout(View child, int position) {
+		child.measure(MeasureSpec.makeMeasureSpec(itemWidth, MeasureSpec.EXACTLY),
+			MeasureSpec.makeMeasureSpec(itemHeight, MeasureSpec.EXACTLY));
+
+		int left = position * itemWidth;
+		child.layout(left, 0, left + itemWidth, itemHeight);
+	}
+
+	/**
+	 * 첫 번째 아이템을 한 번 만들어서 아이템 크기를 정한다. 만든 뷰는 scrap으로 보낸다.
+	 */
+	private void ensureItemSize() {
+		if (itemWidth > 0 || adapter == null || itemCount <= 0) {
+			return;
+		}
+
+		View child = getItemView(0, null);
+
+		int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+		child.measure(unspecified, unspecified);
+
+		itemWidth = child.getMeasuredWidth();
+		itemHeight = child.getMeasuredHeight();
+
+		if (!addedViews.contains(child)) {
+			scrapViews.add(child);
+		}
+	}
+
+	/**
+	 * 데이터가 바뀌면 붙어 있는 뷰들을 그 자리에서 다시 바인딩하고, 전체 너비가 바뀔 수 있으므로 레이아웃을 다시 한다.
+	 */
+	private void onDataSetChanged() {
+		int oldAdapterCount = adapterCount;
+		adapterCount = adapter.getCount();
+		itemCount = adapterCount + addedViews.size();
+
+		if (oldAdapterCount != adapterCount && !addedViews.isEmpty()) {
+			// addChildView()로 넣은 뷰들의 position이 밀렸으므로 그 자리에서 바인딩하지 않고 다음 레이아웃에서 다시 채운다.
+			recycleAll();
+			requestLayout();
+			invalidate();
+			return;
+		}
+
+		while (!activeViews.isEmpty() && firstPosition + activeViews.size() > itemCount) {
+			recycle(activeViews.remove(activeViews.size() - 1));
+		}
+
+		for (int i = 0; i < activeViews.size(); i++) {
+			View child = activeViews.get(i);
+			View rebound = getItemView(firstPosition + i, child);
+
+			if (rebound != child) {
+				removeViewInLayout(child);
+				scrapViews.add(child);
+
+				LayoutParams params = rebound.getLayoutParams();
+				addViewInLayout(rebound, i, params != null ? params : generateDefaultLayoutParams(), true);
+				activeViews.set(i, rebound);
+			}
+		}
+
+		requestLayout();
+		invalidate();
+	}
+}
@@ -1,13 +1,25 @@
 package com.example.testdnd;
 
+import java.util.ArrayList;
+
 import android.content.Context;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.Adapter;
+import android.widget.FrameLayout;
 import android.widget.HorizontalScrollView;
 import android.widget.LinearLayout;
+import android.widget.OverScroller;
+
+import com.example.testdnd.dnd.DragTraceRecorder;
 
 /**
  * @author Choi Yunjae (KR15548, yunjae.choi@nhn.com)
@@ -16,7 +28,67 @@ import android.widget.LinearLayout;
 public class VisibleChildDetectableHorizontalScrollView extends HorizontalScrollView {
 	private static final String TAG = "HorizontalScrollView";
 	private OnVisibleItemChangedListener onVisibleItemChangedListener;
-	private LinearLayout layout;
+	private OnVisibleRangeChangedListener onVisibleRangeChangedListener;
+
+	/** 마지막으로 알린 보이는 범위. 알린 적이 없으면 -1 */
+	private int notifiedFirstVisibleItemIndex = -1;
+	private int notifiedLastVisibleItemIndex = -1;
+	private final VisibleRangeDelta visibleRangeDelta = new VisibleRangeDelta();
+	private final int[] visibleRangeTemp = new int[2];
+
+	/** 마지막으로 보이는 범위를 계산했을 때의 scrollX. 스크롤 방향을 알아내는 데 쓴다. */
+	private int lastVisibleRangeScrollX;
+
+	private static final int DEFAULT_PREFETCH_LOOK_AHEAD_COUNT = 4;
+
+	private OnPrefetchRangeListener onPrefetchRangeListener;
+	private int prefetchLookAheadCount = DEFAULT_PREFETCH_LOOK_AHEAD_COUNT;
+
+	/** 마지막으로 알린 prefetch 범위 */
+	private int prefetchFirst = -1;
+	private int prefetchLast = -1;
+	private final int[] prefetchRangeTemp = new int[2];
+
+	public static final int SCROLL_STATE_IDLE = 0;
+	/** 손가락으로 스크롤하는 중 */
+	public static final int SCROLL_STATE_TOUCH_SCROLL = 1;
+	/** 손을 뗀 후 fling으로 스크롤되는 중 */
+	public static final int SCROLL_STATE_FLING = 2;
+	/** 드래그 & 드롭 중에 HDragController가 자동 스크롤하는 중 */
+	public static final int SCROLL_STATE_AUTO_SCROLL = 3;
+
+	/** 이 시간 동안 스크롤이 없으면 fling이 끝난 것으로 본다. */
+	private static final long FLING_SETTLE_TIMEOUT_MS = 100;
+
+	/** 스크롤 변화 사이의 간격이 이보다 길면 속도를 처음부터 다시 잰다. */
+	private static final long VELOCITY_RESET_INTERVAL_MS = 100;
+
+	private OnScrollStateChangedListener onScrollStateChangedListener;
+	private int scrollState = SCROLL_STATE_IDLE;
+	private float scrollVelocity;
+	private long lastScrollTime;
+
+	/** fling이 멈출 위치를 예측하는 데만 쓰는 OverScroller */
+	private OverScroller flingPredictor;
+	private int predictedFlingEndX;
+
+	/**
+	 * 스크롤될 때마다 보이는 범위를 계산하지 않고, 프레임마다 한 번만 마지막 스크롤 위치로 계산한다.
+	 */
+	private boolean isVisibleRangeUpdatePending = false;
+	private final Choreographer.FrameCallback visibleRangeUpdateCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			isVisibleRangeUpdatePending = false;
+
+			dispatchVisibleItemChanged(getScrollX(), false);
+		}
+	};
+	/** 자식들을 담는 내부 레이아웃. fixed-width 모드에서는 FixedStrideLayout, 아니면 LinearLayout이다. */
+	private ViewGroup layout;
+
+	/** adapter 모드일 때의 내부 컨테이너. null이면 addChild()로 자식을 직접 넣는 모드다. */
+	private RecyclingStripLayout recycler;
 
 	/**
 	 * View.mAttachInfo가 있을 때 post() 메소드가 제대로 동작한다.
@@ -32,6 +104,49 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 		}
 	};
 
+	/** 자식들의 너비 누적합. 자식의 너비가 바뀌면 레이아웃 리스너를 통해 갱신된다. */
+	private final ChildWidthIndex widthIndex = new ChildWidthIndex();
+
+	/** widthIndex와 같은 순서로, 각 자식에 붙인 레이아웃 리스너 */
+	private final ArrayList<ChildWidthListener> childWidthListeners = new ArrayList<ChildWidthListener>();
+
+	/**
+	 * 자식의 너비가 바뀌면 widthIndex를 갱신한다.
+	 */
+	private class ChildWidthListener implements View.OnLayoutChangeListener {
+		int index;
+
+		ChildWidthListener(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void onLayoutChange(View v, int left, int top, int right, int bottom,
+				int oldLeft, int oldTop, int oldRight, int oldBottom) {
+			widthIndex.set(index, right - left);
+		}
+	}
+
+	/** 지금 이 뷰가 터치 제스처를 받고 있는지 */
+	private boolean isTouching = false;
+
+	/** 배경을 숨기려고 mutate()한 ColorDrawable. 아직 숨긴 적이 없으면 null */
+	private ColorDrawable mutatedBackground;
+	/** mutatedBackground의 원래 alpha */
+	private int backgroundAlpha;
+
+	/**
+	 * 셀의 translation, scale, visibility는 이 뷰의 display list를 다시 만들지 않고 바뀌므로 draw()에서는 알 수 없다.
+	 * 그래서 프레임마다 그리기 직전에 배경이 가려졌는지 다시 보고, 바뀌었을 때만 배경의 alpha를 바꿔서 이 뷰를 다시 그리게 한다.
+	 */
+	private final ViewTreeObserver.OnPreDrawListener backgroundCoverageListener = new ViewTreeObserver.OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			updateBackgroundVisibility();
+			return true;
+		}
+	};
+
 	private int fixedItemWidth = -1;
 	private int fixedMarginLeft = -1;
 	private int fixedScrollViewWidth = -1;
@@ -58,44 +173,193 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 	}
 
 	private void initInnerLayout() {
-		this.layout = new LinearLayout(getContext());
+		this.layout = createInnerLayout();
 		this.addView(layout, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT));
 	}
 
+	private ViewGroup createInnerLayout() {
+		if (fixedItemWidth > 0) {
+			return new FixedStrideLayout(getContext(), fixedItemWidth, Math.max(0, fixedMarginLeft));
+		}
+
+		return new LinearLayout(getContext());
+	}
+
+	/**
+	 * 모든 아이템의 너비를 itemWidth로 고정한다. 내부 레이아웃이 FixedStrideLayout으로 바뀌어서
+	 * 아이템의 위치를 바로 계산하고, 크기가 바뀐 아이템만 다시 레이아웃한다.
+	 */
 	public void enableFixedWidthMode(int itemWidth, int marginLeft, int scrollViewWidth) {
 		this.fixedItemWidth = itemWidth;
 		this.fixedMarginLeft = marginLeft;
 		this.fixedScrollViewWidth = scrollViewWidth;
+
+		if (layout instanceof FixedStrideLayout) {
+			((FixedStrideLayout)layout).setStride(itemWidth, Math.max(0, marginLeft));
+		} else {
+			replaceInnerLayout();
+		}
 	}
 
 	public void disableFixedWidthMode() {
 		this.fixedItemWidth = -1;
 		this.fixedMarginLeft = -1;
 		this.fixedScrollViewWidth = -1;
+
+		if (layout instanceof FixedStrideLayout) {
+			replaceInnerLayout();
+		}
+	}
+
+	/**
+	 * fixed-width 모드에 맞는 내부 레이아웃으로 바꾸고, 기존 자식들을 순서대로 옮긴다.
+	 */
+	private void replaceInnerLayout() {
+		if (layout == null) {
+			// adapter 모드
+			return;
+		}
+
+		ViewGroup oldLayout = layout;
+		ViewGroup newLayout = createInnerLayout();
+
+		int count = oldLayout.getChildCount();
+		View[] children = new View[count];
+		for (int i = 0; i < count; i++) {
+			children[i] = oldLayout.getChildAt(i);
+		}
+		oldLayout.removeAllViews();
+
+		for (int i = 0; i < count; i++) {
+			newLayout.addView(children[i]);
+		}
+
+		this.removeView(oldLayout);
+		this.layout = newLayout;
+		this.addView(newLayout, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT));
 	}
 
 	public void reset() {
+		cancelVisibleRangeUpdate();
+		notifiedFirstVisibleItemIndex = -1;
+		notifiedLastVisibleItemIndex = -1;
+		prefetchFirst = -1;
+		prefetchLast = -1;
+		setScrollState(SCROLL_STATE_IDLE, 0f);
+
 		this.removeAllViews();
+		clearWidthIndex();
+		if (recycler != null) {
+			recycler.setAdapter(null);
+			recycler = null;
+		}
 		init();
 	}
 
+	/**
+	 * adapter 모드로 바꾼다. 화면에 보이는 아이템과 약간의 버퍼만 뷰로 만들고, 화면 밖으로 나간 뷰는
+	 * adapter.getView()의 convertView로 재활용한다. 모든 아이템의 크기는 같아야 한다.
+	 * adapter 모드에서 addChild()로 넣은 뷰는 adapter의 아이템 뒤에 붙고, removeGrandChildAt()은 adapter가 ItemRemovableAdapter일 때 adapter에게 넘어간다.
+	 * position으로 아이템을 다룰 때는 getItemCount(), getViewForPosition()을 쓴다.
+	 *
+	 * @param adapter null이면 addChild()로 자식을 직접 넣는 모드로 돌아간다.
+	 */
+	public void setAdapter(Adapter adapter) {
+		reset();
+
+		if (adapter == null) {
+			return;
+		}
+
+		this.removeAllViews();
+		this.layout = null;
+
+		this.recycler = new RecyclingStripLayout(getContext());
+		recycler.setAdapter(adapter);
+		this.addView(recycler, new FrameLayout.LayoutParams(FrameLayout.LayoutParams.WRAP_CONTENT, FrameLayout.LayoutParams.MATCH_PARENT));
+	}
+
+	public Adapter getAdapter() {
+		return recycler != null ? recycler.getAdapter() : null;
+	}
+
+	/**
+	 * @return 전체 아이템 수. adapter 모드에서는 addChild()로 넣은 뷰도 포함한다. adapter 모드가 아니면 getGrandChildCount()와 같다.
+	 */
+	public int getItemCount() {
+		return recycler != null ? recycler.getItemCount() : getGrandChildCount();
+	}
+
+	/**
+	 * @return position의 아이템을 보여주고 있는 뷰. adapter 모드에서 화면 밖이라 만들어지지 않은 position이면 null
+	 */
+	public View getViewForPosition(int position) {
+		if (recycler != null) {
+			return recycler.getViewForPosition(position);
+		}
+
+		return getGrandChildAt(position);
+	}
+
+	/**
+	 * child를 마지막 아이템으로 넣는다.
+	 * adapter 모드에서는 adapter의 아이템들 뒤에 붙고, 재활용되지 않으며 크기는 adapter의 아이템과 같게 맞춰진다.
+	 */
 	public void addChild(View child) {
+		if (recycler != null) {
+			recycler.addChildView(child);
+			return;
+		}
+
+		ChildWidthListener listener = new ChildWidthListener(widthIndex.size());
+		child.addOnLayoutChangeListener(listener);
+		childWidthListeners.add(listener);
+		widthIndex.add(child.getWidth());
+
 		layout.addView(child);
 	}
 
+	private void clearWidthIndex() {
+		childWidthListeners.clear();
+		widthIndex.clear();
+	}
+
+	/**
+	 * 자식이 중간에서 빠졌을 때 인덱스를 처음부터 다시 만든다.
+	 */
+	private void rebuildWidthIndex() {
+		widthIndex.clear();
+		for (int i = 0; i < childWidthListeners.size(); i++) {
+			childWidthListeners.get(i).index = i;
+			widthIndex.add(layout.getChildAt(i).getWidth());
+		}
+	}
+
+	/**
+	 * @return 기본 모드의 내부 LinearLayout. fixed-width 모드나 adapter 모드처럼 내부 레이아웃이 LinearLayout이 아니면 null.
+	 * 모드와 상관없이 내부 레이아웃이 필요하면 getInnerLayout()을 쓴다.
+	 */
 	public LinearLayout getLayout() {
+		return layout instanceof LinearLayout ? (LinearLayout)layout : null;
+	}
+
+	/**
+	 * @return 아이템들을 담는 내부 레이아웃. adapter 모드에서는 null
+	 */
+	public ViewGroup getInnerLayout() {
 		return layout;
 	}
 
 	public void setSelection(int position) {
-		int offsetX = 0;
-		int len = Math.min(position, getGrandChildCount() - 1);
-
-		for (int i = 0; i < len; i++) {
-			View child = getGrandChildAt(i);
-			offsetX += child.getWidth();
+		if (recycler != null) {
+			int len = Math.max(0, Math.min(position, recycler.getItemCount() - 1));
+			this.scrollTo(len * recycler.getItemWidth(), 0);
+			return;
 		}
 
+		int len = Math.min(position, getGrandChildCount() - 1);
+		int offsetX = widthIndex.sum(len);
+
 		this.scrollTo(offsetX, 0);
 	}
 
@@ -103,11 +367,36 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 		this.onVisibleItemChangedListener = onVisibleItemChangedListener;
 	}
 
-	public void removeGrandChildAt(int index) {
+	public void setOnVisibleRangeChangedListener(OnVisibleRangeChangedListener onVisibleRangeChangedListener) {
+		this.onVisibleRangeChangedListener = onVisibleRangeChangedListener;
+	}
+
+	/**
+	 * index번째 자식을 뺀다. adapter 모드에서는 index가 getGrandChildAt()과 같이 지금 붙어 있는 뷰들 중의 순서이고,
+	 * addChild()로 넣은 뷰면 바로 빼고 adapter의 아이템이면 ItemRemovableAdapter.removeItem()으로 넘긴다.
+	 *
+	 * @return 뺐으면 true. index에 자식이 없거나 adapter가 ItemRemovableAdapter가 아니면 false
+	 */
+	public boolean removeGrandChildAt(int index) {
 		View v = getGrandChildAt(index);
-		getLayout().removeView(v);
+		if (v == null) {
+			return false;
+		}
+
+		if (recycler != null) {
+			return recycler.removeItemForView(v);
+		}
+
+		v.removeOnLayoutChangeListener(childWidthListeners.remove(index));
+		getInnerLayout().removeView(v);
+
+		rebuildWidthIndex();
+		return true;
 	}
 
+	/**
+	 * adapter 모드에서는 index가 position이 아니라 지금 붙어 있는 뷰들 중의 순서다. position으로 찾을 때는 getViewForPosition()을 쓴다.
+	 */
 	public View getGrandChildAt(int index) {
 		ViewGroup mainView = (ViewGroup)this.getChildAt(0);
 		if (mainView == null || mainView.getChildCount() <= index) {
@@ -170,7 +459,8 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 
 	private void doResetScroll() {
 		this.scrollTo(0, 0);
-		this.triggerOnVisibleItemChanged(0);
+		cancelVisibleRangeUpdate();
+		dispatchVisibleItemChanged(0, true);
 	}
 
 	@Override
@@ -183,23 +473,163 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 			postResetScroll();
 		}
 
+		getViewTreeObserver().addOnPreDrawListener(backgroundCoverageListener);
+
 		Log.d(TAG, "--onAttachedToWindow()");
 	}
 
+	@Override
+	protected void onDetachedFromWindow() {
+		cancelVisibleRangeUpdate();
+		removeCallbacks(flingSettleCheck);
+		getViewTreeObserver().removeOnPreDrawListener(backgroundCoverageListener);
+
+		super.onDetachedFromWindow();
+	}
+
+	/**
+	 * 배경이 ColorDrawable이면, 보이는 영역이 불투명한 셀로 모두 덮여 있는 동안 alpha를 0으로 해서 그리지 않는다.
+	 * alpha가 0인 ColorDrawable은 아무것도 그리지 않는다. alpha가 바뀌면 ColorDrawable이 이 뷰를 invalidate한다.
+	 */
+	private void updateBackgroundVisibility() {
+		Drawable background = getBackground();
+		if (!(background instanceof ColorDrawable)) {
+			return;
+		}
+
+		if (background != mutatedBackground) {
+			mutatedBackground = (ColorDrawable)background.mutate();
+			backgroundAlpha = mutatedBackground.getAlpha();
+		}
+
+		int alpha = isBackgroundCovered() ? 0 : backgroundAlpha;
+		if (mutatedBackground.getAlpha() != alpha) {
+			mutatedBackground.setAlpha(alpha);
+		}
+	}
+
+	/**
+	 * @return [scrollX, scrollX + width) 전체가, 옮겨지거나 커지지 않은 불투명한 자식들로 빈틈없이 덮여 있으면 true
+	 */
+	private boolean isBackgroundCovered() {
+		View child = getChildAt(0);
+		if (!(child instanceof ViewGroup) || child.getTop() > 0 || child.getBottom() < getHeight()) {
+			return false;
+		}
+
+		ViewGroup mainView = (ViewGroup)child;
+		final int offset = mainView.getLeft() - mainView.getScrollX();
+		final int end = getScrollX() + getWidth();
+		final int count = mainView.getChildCount();
+
+		// 자식이 x 순서대로 있지 않을 수도 있으므로, 더 나아가지 못할 때까지 covered 위치를 덮는 자식을 찾는다.
+		int covered = getScrollX();
+		boolean advanced = true;
+		while (covered < end && advanced) {
+			advanced = false;
+			for (int i = 0; i < count; i++) {
+				View cell = mainView.getChildAt(i);
+				int left = cell.getLeft() + offset;
+				int right = cell.getRight() + offset;
+				if (left <= covered && right > covered && isCoveringCell(cell, mainView.getHeight())) {
+					covered = right;
+					advanced = true;
+				}
+			}
+		}
+
+		return covered >= end;
+	}
+
+	private static boolean isCoveringCell(View cell, int height) {
+		return cell.getVisibility() == View.VISIBLE && cell.getTop() <= 0 && cell.getBottom() >= height
+			&& cell.getTranslationX() == 0f && cell.getTranslationY() == 0f
+			&& cell.getScaleX() == 1f && cell.getScaleY() == 1f && cell.isOpaque();
+	}
+
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev) {
+		final int action = ev.getActionMasked();
+		if (action == MotionEvent.ACTION_DOWN) {
+			isTouching = true;
+
+			// 터치하면 fling이 멈춘다.
+			if (scrollState == SCROLL_STATE_FLING) {
+				setScrollState(SCROLL_STATE_IDLE, 0f);
+			}
+		}
+
+		boolean handled = super.dispatchTouchEvent(ev);
+
+		if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+			isTouching = false;
+
+			// fling이 시작되지 않았으면 여기서 스크롤이 끝난다.
+			if (scrollState == SCROLL_STATE_TOUCH_SCROLL) {
+				setScrollState(SCROLL_STATE_IDLE, 0f);
+			}
+		}
+
+		return handled;
+	}
+
 	@Override
 	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
-		getParent().requestDisallowInterceptTouchEvent(true);
+		// 부모들이 가로채지 못하게 하는 것은 DragLayer의 TouchArbiter가 제스처 방향을 보고 정한다.
+
+		if (recycler != null) {
+			recycler.fillViewport();
+		}
 
-		triggerOnVisibleItemChanged(l);
+		trackScrollVelocity(l - oldl);
+
+		if (scrollState == SCROLL_STATE_FLING && l == predictedFlingEndX) {
+			setScrollState(SCROLL_STATE_IDLE, 0f);
+		} else if (isTouching && scrollState == SCROLL_STATE_IDLE) {
+			setScrollState(SCROLL_STATE_TOUCH_SCROLL, scrollVelocity);
+		}
+
+		scheduleVisibleRangeUpdate();
 
 		super.onScrollChanged(l, t, oldl, oldt);
 	}
 
+	/**
+	 * 보이는 범위가 바뀌지 않았더라도 지금의 스크롤 위치로 리스너를 바로 부른다.
+	 */
 	public void updateViewsInLayout() {
-		triggerOnVisibleItemChanged(this.getScrollX());
+		cancelVisibleRangeUpdate();
+		dispatchVisibleItemChanged(this.getScrollX(), true);
 	}
 
+	/**
+	 * 보이는 범위를 바로 계산해서, 마지막으로 알린 범위와 다를 때만 리스너를 부른다.
+	 */
 	public void triggerOnVisibleItemChanged(int newX) {
+		dispatchVisibleItemChanged(newX, false);
+	}
+
+	private void scheduleVisibleRangeUpdate() {
+		if (!isVisibleRangeUpdatePending) {
+			isVisibleRangeUpdatePending = true;
+			Choreographer.getInstance().postFrameCallback(visibleRangeUpdateCallback);
+		}
+	}
+
+	private void cancelVisibleRangeUpdate() {
+		if (isVisibleRangeUpdatePending) {
+			isVisibleRangeUpdatePending = false;
+			Choreographer.getInstance().removeFrameCallback(visibleRangeUpdateCallback);
+		}
+	}
+
+	/**
+	 * newX만큼 스크롤되었을 때 보이는 아이템의 범위를 계산한다.
+	 *
+	 * @param outRange [0]에 첫 번째, [1]에 마지막 index가 담긴다.
+	 * @return 자식이 없거나 아직 측정되지 않아서 계산할 수 없으면 false
+	 */
+	private boolean computeVisibleRange(int newX, int[] outRange) {
 		ViewGroup mainView = (ViewGroup)this.getChildAt(0);
 
 		boolean isFixedWidthMode = (fixedItemWidth > 0);
@@ -209,54 +639,325 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 		int firstVisibleItemIndex = -1;
 		int lastVisibleItemIndex = -1;
 
-		if (mainView == null || mainView.getChildCount() <= 0) {
-			return;
+		if (mainView == null) {
+			return false;
 		}
 
-		if (onVisibleItemChangedListener == null) {
-			return;
+		final int childCount = recycler != null ? recycler.getItemCount() : mainView.getChildCount();
+		if (childCount <= 0) {
+			return false;
 		}
 
+		// 모든 아이템의 너비가 같으면 인덱스 없이 바로 계산한다.
+		int itemWidth = -1;
+		int marginLeft = 0;
 		if (isFixedWidthMode) {
 			scrollViewWidth = fixedScrollViewWidth;
-			widthTotal += fixedMarginLeft;
+			itemWidth = fixedItemWidth;
+			marginLeft = fixedMarginLeft;
+		} else if (recycler != null) {
+			itemWidth = recycler.getItemWidth();
+			if (itemWidth <= 0) {
+				// 아직 측정되지 않았다.
+				return false;
+			}
 		}
 
-		for (int i = 0; i < mainView.getChildCount(); i++) {
-			int width = isFixedWidthMode ? fixedItemWidth : mainView.getChildAt(i).getWidth();
+		if (itemWidth > 0) {
+			// 0 ~ i 번째까지의 너비 합은 marginLeft + (i + 1) * itemWidth 이다.
+			firstVisibleItemIndex = ceilDiv(newX - marginLeft, itemWidth) - 1;
+			if (firstVisibleItemIndex < 0) {
+				firstVisibleItemIndex = 0;
+			}
 
-			widthTotal += width;
+			if (firstVisibleItemIndex < childCount) {
+				int last = ceilDiv(newX + scrollViewWidth - marginLeft, itemWidth) - 1;
+				if (last <= firstVisibleItemIndex) {
+					last = firstVisibleItemIndex + 1;
+				}
+				lastVisibleItemIndex = last < childCount ? last : -1;
+			} else {
+				firstVisibleItemIndex = -1;
+			}
+		} else if (widthIndex.size() == childCount) {
+			// 0 ~ i 번째까지의 너비 합이 newX 이상이 되는 첫 번째 i
+			firstVisibleItemIndex = widthIndex.lowerBound(newX);
 
-			if (firstVisibleItemIndex < 0) {
-				if (newX <= widthTotal) {
-					// find first visible index
-					firstVisibleItemIndex = i;
-					widthVisible = widthTotal - newX;
+			if (firstVisibleItemIndex < childCount) {
+				// 첫 번째 아이템 다음부터, 너비 합이 newX + scrollViewWidth 이상이 되는 첫 번째 i
+				int last = widthIndex.lowerBound(newX + scrollViewWidth);
+				if (last <= firstVisibleItemIndex) {
+					last = firstVisibleItemIndex + 1;
 				}
+				lastVisibleItemIndex = last < childCount ? last : -1;
 			} else {
-				// find last visible index
-				widthVisible += width;
-				if (widthVisible >= scrollViewWidth) {
-					lastVisibleItemIndex = i;
-					break;
+				firstVisibleItemIndex = -1;
+			}
+		} else {
+			// addChild()를 거치지 않고 추가된 자식이 있으면 인덱스를 쓸 수 없으므로 직접 더한다.
+			for (int i = 0; i < childCount; i++) {
+				int width = mainView.getChildAt(i).getWidth();
+
+				widthTotal += width;
+
+				if (firstVisibleItemIndex < 0) {
+					if (newX <= widthTotal) {
+						// find first visible index
+						firstVisibleItemIndex = i;
+						widthVisible = widthTotal - newX;
+					}
+				} else {
+					// find last visible index
+					widthVisible += width;
+					if (widthVisible >= scrollViewWidth) {
+						lastVisibleItemIndex = i;
+						break;
+					}
 				}
 			}
 		}
 
 		if (lastVisibleItemIndex < 0) {
 			// overscroll
-			lastVisibleItemIndex = mainView.getChildCount() - 1;
+			lastVisibleItemIndex = childCount - 1;
 		}
 
-		Log.d(TAG, "triggerOnVisibleItemChanged(" + newX + ") : " + firstVisibleItemIndex + "~"
-			+ lastVisibleItemIndex);
-
-		// trigger
 		if (firstVisibleItemIndex < 0) {
 			firstVisibleItemIndex = 0;
 		}
 
-		onVisibleItemChangedListener.onVisibleItemChanged(this, firstVisibleItemIndex, lastVisibleItemIndex);
+		outRange[0] = firstVisibleItemIndex;
+		outRange[1] = lastVisibleItemIndex;
+		return true;
+	}
+
+	/**
+	 * @param force true면 범위가 바뀌지 않았더라도 리스너를 부른다.
+	 */
+	private void dispatchVisibleItemChanged(int newX, boolean force) {
+		if (onVisibleItemChangedListener == null && onVisibleRangeChangedListener == null && onPrefetchRangeListener == null) {
+			return;
+		}
+
+		if (!computeVisibleRange(newX, visibleRangeTemp)) {
+			return;
+		}
+
+		final int scrollDirection = newX - lastVisibleRangeScrollX;
+		lastVisibleRangeScrollX = newX;
+
+		int firstVisibleItemIndex = visibleRangeTemp[0];
+		int lastVisibleItemIndex = visibleRangeTemp[1];
+
+		// 방향이 바뀐 것은 범위가 그대로여도 알려야 하므로 중복 검사보다 먼저 한다.
+		if (scrollState != SCROLL_STATE_FLING) {
+			dispatchLookAheadRange(firstVisibleItemIndex, lastVisibleItemIndex, scrollDirection);
+		}
+
+		if (!force && firstVisibleItemIndex == notifiedFirstVisibleItemIndex
+			&& lastVisibleItemIndex == notifiedLastVisibleItemIndex) {
+			return;
+		}
+
+		DragTraceRecorder.getInstance().record(DragTraceRecorder.TYPE_VISIBLE_RANGE,
+			firstVisibleItemIndex, lastVisibleItemIndex, newX, 0f);
+
+		visibleRangeDelta.set(notifiedFirstVisibleItemIndex, notifiedLastVisibleItemIndex,
+			firstVisibleItemIndex, lastVisibleItemIndex);
+		notifiedFirstVisibleItemIndex = firstVisibleItemIndex;
+		notifiedLastVisibleItemIndex = lastVisibleItemIndex;
+
+		if (onVisibleItemChangedListener != null) {
+			onVisibleItemChangedListener.onVisibleItemChanged(this, firstVisibleItemIndex, lastVisibleItemIndex);
+		}
+
+		if (onVisibleRangeChangedListener != null) {
+			onVisibleRangeChangedListener.onVisibleRangeChanged(this, visibleRangeDelta);
+		}
+	}
+
+	/**
+	 * 드래그로 스크롤하는 중에, 스크롤 방향으로 prefetchLookAheadCount개의 아이템을 미리 알린다.
+	 */
+	private void dispatchLookAheadRange(int first, int last, int scrollDirection) {
+		if (onPrefetchRangeListener == null || prefetchLookAheadCount <= 0 || scrollDirection == 0) {
+			return;
+		}
+
+		int itemCount = getItemCount();
+		if (scrollDirection > 0 && last + 1 < itemCount) {
+			dispatchPrefetchRange(last + 1, Math.min(itemCount - 1, last + prefetchLookAheadCount), false);
+		} else if (scrollDirection < 0 && first > 0) {
+			dispatchPrefetchRange(Math.max(0, first - prefetchLookAheadCount), first - 1, false);
+		}
+	}
+
+	private void dispatchPrefetchRange(int first, int last, boolean isFlingTarget) {
+		if (first == prefetchFirst && last == prefetchLast) {
+			return;
+		}
+
+		prefetchFirst = first;
+		prefetchLast = last;
+
+		onPrefetchRangeListener.onPrefetchRange(this, first, last, isFlingTarget);
+	}
+
+	/**
+	 * fling이 시작될 때, 멈출 위치를 미리 계산해서 그 위치에서 보일 범위를 알린다.
+	 * HorizontalScrollView의 OverScroller는 private이므로, 같은 인자로 따로 fling시킨 OverScroller의 최종 위치를 쓴다.
+	 */
+	@Override
+	public void fling(int velocityX) {
+		super.fling(velocityX);
+
+		if (getChildCount() <= 0) {
+			return;
+		}
+
+		int width = getWidth() - getPaddingRight() - getPaddingLeft();
+		int maxX = Math.max(0, getChildAt(0).getWidth() - width);
+
+		if (flingPredictor == null) {
+			flingPredictor = new OverScroller(getContext());
+		}
+		flingPredictor.fling(getScrollX(), getScrollY(), velocityX, 0, 0, maxX, 0, 0, width / 2, 0);
+		predictedFlingEndX = Math.max(0, Math.min(maxX, flingPredictor.getFinalX()));
+		flingPredictor.forceFinished(true);
+
+		if (predictedFlingEndX == getScrollX()) {
+			return;
+		}
+
+		setScrollState(SCROLL_STATE_FLING, velocityX);
+		postFlingSettleCheck();
+
+		if (onPrefetchRangeListener != null && computeVisibleRange(predictedFlingEndX, prefetchRangeTemp)) {
+			dispatchPrefetchRange(prefetchRangeTemp[0], prefetchRangeTemp[1], true);
+		}
+	}
+
+	/**
+	 * @return fling 중이면 멈출 것으로 예측되는 scrollX, 아니면 -1
+	 */
+	public int getPredictedFlingEndX() {
+		return scrollState == SCROLL_STATE_FLING ? predictedFlingEndX : -1;
+	}
+
+	/**
+	 * @param count 드래그로 스크롤하는 중에 스크롤 방향으로 미리 알릴 아이템 수. 0이면 알리지 않는다.
+	 */
+	public void setPrefetchLookAheadCount(int count) {
+		this.prefetchLookAheadCount = count;
+	}
+
+	public int getPrefetchLookAheadCount() {
+		return prefetchLookAheadCount;
+	}
+
+	public void setOnPrefetchRangeListener(OnPrefetchRangeListener onPrefetchRangeListener) {
+		this.onPrefetchRangeListener = onPrefetchRangeListener;
+	}
+
+	public void setOnScrollStateChangedListener(OnScrollStateChangedListener onScrollStateChangedListener) {
+		this.onScrollStateChangedListener = onScrollStateChangedListener;
+	}
+
+	/**
+	 * @return SCROLL_STATE_ 상수
+	 */
+	public int getScrollState() {
+		return scrollState;
+	}
+
+	/**
+	 * @return 최근 스크롤 변화로 계산한 속도 (px/s). 오른쪽의 아이템이 보이는 방향이 양수다.
+	 */
+	public float getScrollVelocity() {
+		return scrollState == SCROLL_STATE_IDLE ? 0f : scrollVelocity;
+	}
+
+	/**
+	 * HDragController가 드래그 중에 자동 스크롤을 시작하거나 멈출 때 부른다.
+	 *
+	 * @param velocity 자동 스크롤 속도 (px/s)
+	 */
+	public void setAutoScrolling(boolean autoScrolling, float velocity) {
+		if (autoScrolling) {
+			if (scrollState != SCROLL_STATE_AUTO_SCROLL) {
+				setScrollState(SCROLL_STATE_AUTO_SCROLL, velocity);
+			}
+		} else if (scrollState == SCROLL_STATE_AUTO_SCROLL) {
+			setScrollState(SCROLL_STATE_IDLE, 0f);
+		}
+	}
+
+	private void setScrollState(int newState, float velocity) {
+		if (scrollState == newState) {
+			return;
+		}
+
+		scrollState = newState;
+		if (newState == SCROLL_STATE_IDLE) {
+			scrollVelocity = 0f;
+			lastScrollTime = 0;
+		}
+
+		if (onScrollStateChangedListener != null) {
+			onScrollStateChangedListener.onScrollStateChanged(this, newState, velocity);
+		}
+	}
+
+	/**
+	 * 스크롤이 바뀔 때마다 부른다. 이전 변화와의 시간 차이로 속도를 구하고, 튀지 않도록 이전 값과 평균을 낸다.
+	 */
+	private void trackScrollVelocity(int dx) {
+		long now = SystemClock.uptimeMillis();
+		long interval = now - lastScrollTime;
+
+		if (lastScrollTime == 0 || interval > VELOCITY_RESET_INTERVAL_MS) {
+			scrollVelocity = 0f;
+		} else if (interval > 0) {
+			float instant = dx * 1000f / interval;
+			scrollVelocity = scrollVelocity == 0f ? instant : (scrollVelocity + instant) / 2f;
+		}
+
+		lastScrollTime = now;
+	}
+
+	/**
+	 * fling이 예측한 위치에 닿지 못하고 끝나는 경우(가장자리에서 튕기는 경우 등)를 위해,
+	 * 일정 시간 동안 스크롤이 없으면 IDLE로 바꾼다.
+	 */
+	private void postFlingSettleCheck() {
+		removeCallbacks(flingSettleCheck);
+		postDelayed(flingSettleCheck, FLING_SETTLE_TIMEOUT_MS);
+	}
+
+	private final Runnable flingSettleCheck = new Runnable() {
+		@Override
+		public void run() {
+			if (scrollState != SCROLL_STATE_FLING) {
+				return;
+			}
+
+			if (SystemClock.uptimeMillis() - lastScrollTime >= FLING_SETTLE_TIMEOUT_MS) {
+				setScrollState(SCROLL_STATE_IDLE, 0f);
+			} else {
+				postDelayed(this, FLING_SETTLE_TIMEOUT_MS);
+			}
+		}
+	};
+
+	/**
+	 * 올림 나눗셈. divisor는 양수여야 한다.
+	 */
+	private static int ceilDiv(int dividend, int divisor) {
+		int quotient = dividend / divisor;
+		if (quotient * divisor < dividend) {
+			quotient++;
+		}
+		return quotient;
 	}
 
 	public static String getActionName(int action) {
@@ -276,9 +977,52 @@ public class VisibleChildDetectableHorizontalScrollView extends HorizontalScroll
 		}
 	}
 
+	/**
+	 * adapter 모드에서 removeGrandChildAt()으로 adapter의 아이템을 뺄 수 있게 하는 adapter.
+	 */
+	public static interface ItemRemovableAdapter extends Adapter {
+		/**
+		 * position의 아이템을 데이터에서 빼고 notifyDataSetChanged()로 알린다.
+		 */
+		public void removeItem(int position);
+	}
+
 	public static interface OnVisibleItemChangedListener {
 		public void onVisibleItemChanged(VisibleChildDetectableHorizontalScrollView hScrollView, int first, int last);
 	}
+
+	/**
+	 * 보이는 범위가 바뀌었을 때 새로 보이게 된 position과 빠진 position을 받는다. 프레임마다 최대 한 번 불린다.
+	 */
+	public static interface OnVisibleRangeChangedListener {
+		/**
+		 * @param delta 재사용되는 객체이므로 이 메소드 안에서만 써야 한다.
+		 */
+		public void onVisibleRangeChanged(VisibleChildDetectableHorizontalScrollView hScrollView, VisibleRangeDelta delta);
+	}
+
+	/**
+	 * 스크롤 상태가 바뀔 때 불린다. 비싼 작업을 IDLE이 될 때까지 미루는 데 쓴다.
+	 */
+	public static interface OnScrollStateChangedListener {
+		/**
+		 * @param scrollState SCROLL_STATE_ 상수
+		 * @param velocity 그 시점의 스크롤 속도 (px/s). FLING이면 fling을 시작한 속도, IDLE이면 0
+		 */
+		public void onScrollStateChanged(VisibleChildDetectableHorizontalScrollView hScrollView, int scrollState, float velocity);
+	}
+
+	/**
+	 * 곧 보이게 될 아이템의 범위를 받는다. 썸네일을 미리 읽어 두는 데 쓴다.
+	 */
+	public static interface OnPrefetchRangeListener {
+		/**
+		 * @param first 범위의 첫 번째 position
+		 * @param last 범위의 마지막 position
+		 * @param isFlingTarget true면 fling이 멈출 위치에서 보일 범위, false면 드래그 중 스크롤 방향으로 미리 볼 범위
+		 */
+		public void onPrefetchRange(VisibleChildDetectableHorizontalScrollView hScrollView, int first, int last, boolean isFlingTarget);
+	}
 }
 
 //
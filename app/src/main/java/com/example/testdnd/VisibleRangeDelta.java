@@ -0,0 +1,132 @@
+package com.example.testdnd;
+
+/**
+ * 보이는 아이템 범위가 바뀌었을 때, 새로 보이게 된 position과 화면에서 빠진 position을 알려준다.
+ *
+ * 두 범위 모두 연속된 구간이므로 차이는 최대 두 개의 구간으로 표현된다. 배열이나 리스트를 만들지 않고
+ * 구간 경계만 들고 있으며, 같은 객체를 계속 재사용한다. 따라서 리스너 밖에서 참조를 들고 있으면 안 된다.
+ *
+ * <pre>
+ *  for (int i = 0; i < delta.getEnteredCount(); i++) {
+ *      load(delta.getEnteredAt(i));
+ *  }
+ * </pre>
+ */
+public final class VisibleRangeDelta {
+	private int oldFirst = -1;
+	private int oldLast = -1;
+	private int first = -1;
+	private int last = -1;
+
+	/** 새로 보이게 된 구간들. [start1, end1, start2, end2], start > end이면 빈 구간 */
+	private final int[] entered = new int[] {0, -1, 0, -1};
+
+	/** 화면에서 빠진 구간들 */
+	private final int[] left = new int[] {0, -1, 0, -1};
+
+	VisibleRangeDelta() {
+	}
+
+	/**
+	 * @param oldFirst 이전의 첫 번째 position. 이전 범위가 없으면 -1
+	 * @param oldLast 이전의 마지막 position. 이전 범위가 없으면 -1
+	 */
+	void set(int oldFirst, int oldLast, int first, int last) {
+		this.oldFirst = oldFirst;
+		this.oldLast = oldLast;
+		this.first = first;
+		this.last = last;
+
+		subtract(first, last, oldFirst, oldLast, entered);
+		subtract(oldFirst, oldLast, first, last, left);
+	}
+
+	public int getFirst() {
+		return first;
+	}
+
+	public int getLast() {
+		return last;
+	}
+
+	/**
+	 * @return 이전의 첫 번째 position. 처음 알리는 것이면 -1
+	 */
+	public int getOldFirst() {
+		return oldFirst;
+	}
+
+	public int getOldLast() {
+		return oldLast;
+	}
+
+	public int getEnteredCount() {
+		return count(entered);
+	}
+
+	/**
+	 * @param index 0 ~ getEnteredCount() - 1
+	 * @return 새로 보이게 된 position. 작은 것부터 차례대로
+	 */
+	public int getEnteredAt(int index) {
+		return positionAt(entered, index);
+	}
+
+	public int getLeftCount() {
+		return count(left);
+	}
+
+	/**
+	 * @param index 0 ~ getLeftCount() - 1
+	 * @return 화면에서 빠진 position. 작은 것부터 차례대로
+	 */
+	public int getLeftAt(int index) {
+		return positionAt(left, index);
+	}
+
+	/**
+	 * [aFirst, aLast]에서 [bFirst, bLast]를 뺀 구간들을 out에 담는다. 음수 first는 빈 범위다.
+	 */
+	private static void subtract(int aFirst, int aLast, int bFirst, int bLast, int[] out) {
+		if (aFirst < 0 || aFirst > aLast) {
+			out[0] = 0;
+			out[1] = -1;
+			out[2] = 0;
+			out[3] = -1;
+			return;
+		}
+
+		if (bFirst < 0 || bFirst > bLast) {
+			out[0] = aFirst;
+			out[1] = aLast;
+			out[2] = 0;
+			out[3] = -1;
+			return;
+		}
+
+		// b의 왼쪽에 남는 구간과 오른쪽에 남는 구간
+		out[0] = aFirst;
+		out[1] = Math.min(aLast, bFirst - 1);
+		out[2] = Math.max(aFirst, bLast + 1);
+		out[3] = aLast;
+	}
+
+	private static int count(int[] ranges) {
+		return Math.max(0, ranges[1] - ranges[0] + 1) + Math.max(0, ranges[3] - ranges[2] + 1);
+	}
+
+	private static int positionAt(int[] ranges, int index) {
+		int firstCount = Math.max(0, ranges[1] - ranges[0] + 1);
+		if (index < firstCount) {
+			return ranges[0] + index;
+		}
+
+		return ranges[2] + (index - firstCount);
+	}
+
+	@Override
+	public String toString() {
+		return "VisibleRangeDelta [" + oldFirst + "~" + oldLast + " -> " + first + "~" + last
+			+ ", entered=" + getEnteredCount() + ", left=" + getLeftCount() + "]";
+	}
+}
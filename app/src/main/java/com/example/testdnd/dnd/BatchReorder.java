@@ -0,0 +1,79 @@
+/*
+ * @(#)BatchReorder.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import java.util.List;
+
+/**
+ * 여러 아이템을 한 번에 다른 위치로 옮기는 유틸리티.
+ *
+ * 옮겨지는 아이템들은 원래의 상대적인 순서를 유지한 채 하나의 블록이 되고,
+ * 블록의 첫 번째 아이템이 targetPosition에 오도록 배치된다. (아이템이 하나일 때는 remove(from) 후 add(to)와 같다.)
+ * 리스트 전체를 한 번만 훑으므로 아이템을 하나씩 옮기는 것보다 빠르다.
+ */
+public final class BatchReorder {
+	private BatchReorder() {
+	}
+
+	/**
+	 * 옮긴 후에 블록의 첫 번째 아이템이 놓일 position을 구한다.
+	 *
+	 * @param size 전체 아이템 수
+	 * @param count 옮겨지는 아이템 수
+	 * @param targetPosition 드롭된 position
+	 */
+	public static int getBlockStart(int size, int count, int targetPosition) {
+		return Math.max(0, Math.min(targetPosition, size - count));
+	}
+
+	/**
+	 * list에서 positions의 아이템들을 targetPosition으로 옮긴다.
+	 *
+	 * @param list 순서를 바꿀 리스트
+	 * @param positions 옮길 아이템들의 position. 오름차순으로 정렬되어 있어야 한다.
+	 * @param count positions에서 사용할 개수
+	 * @param targetPosition 드롭된 position
+	 */
+	public static <T> void moveAll(List<T> list, int[] positions, int count, int targetPosition) {
+		final int size = list.size();
+		if (count <= 0 || count >= size) {
+			return;
+		}
+
+		@SuppressWarnings("unchecked")
+		final T[] items = (T[])list.toArray();
+		final int blockStart = getBlockStart(size, count, targetPosition);
+
+		list.clear();
+
+		int moved = 0;
+		int remaining = 0;
+		for (int i = 0; i < size; i++) {
+			if (moved < count && positions[moved] == i) {
+				moved++;
+				continue;
+			}
+
+			if (remaining == blockStart) {
+				addBlock(list, items, positions, count);
+			}
+			list.add(items[i]);
+			remaining++;
+		}
+
+		if (remaining == blockStart) {
+			addBlock(list, items, positions, count);
+		}
+	}
+
+	private static <T> void addBlock(List<T> list, T[] items, int[] positions, int count) {
+		for (int i = 0; i < count; i++) {
+			list.add(items[positions[i]]);
+		}
+	}
+}
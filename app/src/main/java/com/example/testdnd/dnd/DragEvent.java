@@ -0,0 +1,100 @@
+/*
+ * @(#)DragEvent.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+/**
+ * DragEventTarget에게 전달되는 드래그 이벤트.
+ *
+ * 드래그하는 동안 MOVE 이벤트마다 새 객체를 만들지 않도록 HDragController가 하나를 재사용하며 값만 바꿔서 전달한다.
+ * 따라서 콜백이 끝난 뒤에 이 객체를 붙잡아 두면 안 된다. 값이 필요하면 복사해 두어라.
+ */
+public final class DragEvent {
+	private DragSource source;
+	private int sourcePosition = -1;
+	private int targetPosition = -1;
+	private int x;
+	private int y;
+	private int xOffset;
+	private int yOffset;
+	private DragView dragView;
+
+	DragEvent() {
+	}
+
+	void set(DragSource source, int sourcePosition, int targetPosition, int x, int y,
+			int xOffset, int yOffset, DragView dragView) {
+		this.source = source;
+		this.sourcePosition = sourcePosition;
+		this.targetPosition = targetPosition;
+		this.x = x;
+		this.y = y;
+		this.xOffset = xOffset;
+		this.yOffset = yOffset;
+		this.dragView = dragView;
+	}
+
+	void clear() {
+		set(null, -1, -1, 0, 0, 0, 0, null);
+	}
+
+	/**
+	 * @return 드래그를 시작한 DragSource. 뷰가 재활용되는 경우에는 변경될 수 있음을 기억하라.
+	 */
+	public DragSource getSource() {
+		return source;
+	}
+
+	/**
+	 * @return 드래그를 시작한 아이템의 position
+	 */
+	public int getSourcePosition() {
+		return sourcePosition;
+	}
+
+	/**
+	 * @return 이벤트를 받는 DropTarget의 position
+	 */
+	public int getTargetPosition() {
+		return targetPosition;
+	}
+
+	/**
+	 * @return DropTarget 기준의 x 좌표
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return DropTarget 기준의 y 좌표
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return Horizontal offset with the object being dragged where the original touch happened
+	 */
+	public int getXOffset() {
+		return xOffset;
+	}
+
+	/**
+	 * @return Vertical offset with the object being dragged where the original touch happened
+	 */
+	public int getYOffset() {
+		return yOffset;
+	}
+
+	/**
+	 * @return 화면상에 드래그되는 DragView
+	 */
+	public DragView getDragView() {
+		return dragView;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * @(#)DragEventTarget.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+/**
+ * DragEvent 하나로 드래그 이벤트를 받는 DropTarget.
+ *
+ * HDragController는 DropTarget이 이 인터페이스를 구현하고 있으면 DropTarget의 메소드 대신 아래 메소드들을 부른다.
+ * 드래그 정보가 position(int)으로 전달되기 때문에 박싱이나 객체 생성이 없다.
+ * 전달되는 DragEvent는 재사용되므로 콜백 밖에서 참조하면 안 된다.
+ */
+public interface DragEventTarget extends DropTarget {
+	/**
+	 * DropTarget으로 드롭되는 객체를 처리하기 위해 실행된다.
+	 */
+	void onDrop(DragEvent event);
+
+	/**
+	 * 드래그되는 객체가 DropTarget에 진입했을 때
+	 */
+	void onDragEnter(DragEvent event);
+
+	/**
+	 * 드래그되는 객체가 DropTarget 위에 있을 때. MOVE 이벤트마다 불리므로 객체를 만들지 마라.
+	 */
+	void onDragOver(DragEvent event);
+
+	/**
+	 * 드래그 되는 객체가 DropTarget을 벗어났을 때
+	 */
+	void onDragExit(DragEvent event);
+
+	/**
+	 * 드롭 액션이 요청된 위치에서 수행될 수 있는지 검사한다.
+	 *
+	 * @return 드롭이 가능하면 true, 불가능하면 false를 리턴한다.
+	 */
+	boolean acceptDrop(DragEvent event);
+}
@@ -35,19 +35,58 @@ import android.widget.FrameLayout;
 public class DragLayer extends FrameLayout implements HDragController.DragListener {
 	HDragController mDragController;
 
+	/** 제스처마다 누가 터치를 처리할지 정한다. */
+	private final TouchArbiter mTouchArbiter;
+
 	public DragLayer(Context context, AttributeSet attrs) {
 		super(context, attrs);
+
+		mTouchArbiter = new TouchArbiter(this);
+	}
+
+	/**
+	 * @return 지금 진행중인 제스처를 누가 처리하고 있는지
+	 */
+	public TouchArbiter.State getGestureState() {
+		return mTouchArbiter.getState();
+	}
+
+	public TouchArbiter getTouchArbiter() {
+		return mTouchArbiter;
 	}
 
 	public void setDragController(HDragController controller) {
 		mDragController = controller;
 	}
 
+	/**
+	 * DragView를 이 레이어의 맨 위에 추가한다. DragView의 위치는 translationX/Y로만 정해진다.
+	 */
+	void addDragView(DragView dragView) {
+		addView(dragView, new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+	}
+
+	void removeDragView(DragView dragView) {
+		removeView(dragView);
+	}
+
 	@Override
 	public boolean dispatchKeyEvent(KeyEvent event) {
 		return mDragController.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
 	}
 
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev) {
+		// 자식이 requestDisallowInterceptTouchEvent()를 불러도 모든 이벤트를 보도록 dispatch 단계에서 넘긴다.
+		mTouchArbiter.onTouchEvent(ev);
+
+		boolean handled = super.dispatchTouchEvent(ev);
+
+		mTouchArbiter.onTouchEventHandled(ev);
+
+		return handled;
+	}
+
 	@Override
 	public boolean onInterceptTouchEvent(MotionEvent ev) {
 		return mDragController.onInterceptTouchEvent(ev);
@@ -72,6 +111,7 @@ public class DragLayer extends FrameLayout implements HDragController.DragListen
 	 */
 	@Override
 	public void onDragStart(DragSource source, Object dragInfo, int dragAction) {
+		mTouchArbiter.onDragStarted();
 	}
 
 	/**
@@ -7,6 +7,8 @@
 
 package com.example.testdnd.dnd;
 
+import android.graphics.Matrix;
+import android.graphics.drawable.Drawable;
 import android.view.View;
 
 /**
@@ -19,4 +21,13 @@ public interface DragSource {
 	void setDragController(HDragController dragger);
 
 	void onDropCompleted(View target, boolean success);
+
+	/**
+	 * 드래그 이미지로 쓸 Drawable을 돌려준다. 이미 디코딩된 Drawable을 그대로 그리기 때문에 드래그 시작 시 비트맵을 새로 만들지 않는다.
+	 * Drawable의 bounds와 alpha는 바꾸지 않고, DragView 안에서 그려질 위치는 outMatrix로 알려준다.
+	 *
+	 * @param outMatrix 뷰 좌표계로의 변환 행렬을 채운다. identity로 초기화되어 전달된다.
+	 * @return 드래그 이미지로 쓸 Drawable. null이면 뷰의 스냅샷을 사용한다.
+	 */
+	Drawable getDragShadowDrawable(Matrix outMatrix);
 }
@@ -0,0 +1,175 @@
+/*
+ * @(#)DragTraceRecorder.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 드래그 & 드롭과 스크롤 과정에서 일어난 이벤트를 기록하는 고정 크기 링 버퍼.
+ *
+ * 미리 할당해 둔 primitive 배열에 값만 써 넣기 때문에 기록할 때 객체를 만들지 않고 락도 잡지 않는다.
+ * 버퍼가 가득 차면 가장 오래된 이벤트부터 덮어쓴다.
+ * 문자열로 만드는 작업은 버그 리포트 등으로 dump()가 불렸을 때만 한다.
+ *
+ * 이벤트 타입마다 x, y의 의미가 다르다. 각 TYPE_ 상수의 설명을 참고하라.
+ */
+public final class DragTraceRecorder {
+	/** 드래그 시작. x, y: 터치한 화면 좌표 */
+	public static final int TYPE_DRAG_START = 1;
+	/** 드래그 중 포인터 이동. x, y: 화면 좌표 */
+	public static final int TYPE_MOVE = 2;
+	/** DropTarget 진입. x, y: DropTarget 기준 좌표 */
+	public static final int TYPE_ENTER = 3;
+	/** DropTarget 위에서 이동. x, y: DropTarget 기준 좌표 */
+	public static final int TYPE_OVER = 4;
+	/** DropTarget 이탈. x, y: DropTarget 기준 좌표 */
+	public static final int TYPE_EXIT = 5;
+	/** 드롭. x, y: 화면 좌표 */
+	public static final int TYPE_DROP = 6;
+	/** 드래그 종료(드롭 또는 취소 이후). */
+	public static final int TYPE_DRAG_END = 7;
+	/** 자동 스크롤 속도 계산. x: 터치 x 좌표 */
+	public static final int TYPE_SCROLL_SPEED = 8;
+	/** 보이는 아이템 범위 변경. x: 첫 번째 position, y: 마지막 position, target: scrollX */
+	public static final int TYPE_VISIBLE_RANGE = 9;
+
+	private static final int CAPACITY = 512; // 2의 거듭제곱이어야 한다.
+	private static final int MASK = CAPACITY - 1;
+
+	private static final DragTraceRecorder sInstance = new DragTraceRecorder();
+
+	private final int[] types = new int[CAPACITY];
+	private final long[] timestamps = new long[CAPACITY];
+	private final int[] xs = new int[CAPACITY];
+	private final int[] ys = new int[CAPACITY];
+	private final int[] targetPositions = new int[CAPACITY];
+	private final float[] scrollSpeeds = new float[CAPACITY];
+
+	/** 지금까지 기록된 이벤트 수. 다음에 쓸 슬롯을 가리킨다. */
+	private final AtomicLong cursor = new AtomicLong();
+
+	private volatile boolean enabled = true;
+
+	private DragTraceRecorder() {
+	}
+
+	public static DragTraceRecorder getInstance() {
+		return sInstance;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 이벤트를 기록한다. 객체를 만들지 않으므로 터치 이벤트마다 불러도 된다.
+	 *
+	 * @param type TYPE_ 상수
+	 * @param x 타입에 따른 x 값
+	 * @param y 타입에 따른 y 값
+	 * @param targetPosition 관련된 DropTarget의 position. 없으면 -1. TYPE_VISIBLE_RANGE에서는 scrollX
+	 * @param scrollSpeed 자동 스크롤 속도. 없으면 0
+	 */
+	public void record(int type, int x, int y, int targetPosition, float scrollSpeed) {
+		if (!enabled) {
+			return;
+		}
+
+		final int i = (int)(cursor.getAndIncrement() & MASK);
+		types[i] = type;
+		timestamps[i] = System.nanoTime();
+		xs[i] = x;
+		ys[i] = y;
+		targetPositions[i] = targetPosition;
+		scrollSpeeds[i] = scrollSpeed;
+	}
+
+	/**
+	 * @return 지금까지 기록된 이벤트 수. 덮어써진 이벤트도 포함한다.
+	 */
+	public long getRecordedCount() {
+		return cursor.get();
+	}
+
+	public void clear() {
+		cursor.set(0);
+	}
+
+	/**
+	 * 마지막 count개의 이벤트를 오래된 순서대로 문자열로 만든다.
+	 * 기록 중에 불리면 가장 오래된 몇 개는 새 이벤트로 덮어써진 값일 수 있다.
+	 *
+	 * @param count 출력할 이벤트 수. 버퍼 크기보다 크면 버퍼 크기만큼만 출력한다.
+	 */
+	public String dump(int count) {
+		final long end = cursor.get();
+		final long start = Math.max(0, end - Math.min(count, CAPACITY));
+		final long baseTime = start < end ? timestamps[(int)(start & MASK)] : 0;
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("DragTraceRecorder: ").append(end - start).append(" of ").append(end).append(" events\n");
+
+		for (long seq = start; seq < end; seq++) {
+			final int i = (int)(seq & MASK);
+			sb.append('#').append(seq)
+				.append(" +").append((timestamps[i] - baseTime) / 1000).append("us ")
+				.append(getTypeName(types[i]));
+
+			if (types[i] == TYPE_VISIBLE_RANGE) {
+				// target 자리에 position이 아니라 scrollX가 기록되어 있다.
+				sb.append(" first=").append(xs[i])
+					.append(" last=").append(ys[i])
+					.append(" scrollX=").append(targetPositions[i])
+					.append('\n');
+				continue;
+			}
+
+			sb.append(" x=").append(xs[i])
+				.append(" y=").append(ys[i]);
+
+			if (targetPositions[i] >= 0) {
+				sb.append(" target=").append(targetPositions[i]);
+			}
+			if (scrollSpeeds[i] != 0f) {
+				sb.append(" speed=").append(scrollSpeeds[i]);
+			}
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	public static String getTypeName(int type) {
+		switch (type) {
+			case TYPE_DRAG_START:
+				return "DRAG_START";
+			case TYPE_MOVE:
+				return "MOVE";
+			case TYPE_ENTER:
+				return "ENTER";
+			case TYPE_OVER:
+				return "OVER";
+			case TYPE_EXIT:
+				return "EXIT";
+			case TYPE_DROP:
+				return "DROP";
+			case TYPE_DRAG_END:
+				return "DRAG_END";
+			case TYPE_SCROLL_SPEED:
+				return "SCROLL_SPEED";
+			case TYPE_VISIBLE_RANGE:
+				return "VISIBLE_RANGE";
+			default:
+				return String.valueOf(type);
+		}
+	}
+}
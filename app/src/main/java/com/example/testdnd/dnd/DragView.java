@@ -22,6 +22,7 @@ package com.example.testdnd.dnd;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.drawable.Drawable;
@@ -30,27 +31,99 @@ import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
-
-import com.example.testdnd.R;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 
 /**
  * DragView는 DragController에 의해 사용되는 특별한 뷰이다.
  * 드래깅을 하는 동안, 실제로 화면상에서 움직이는 것은 DragView이다. DragView는 사용자가 실제 이동하기를 원하는 뷰의 비트맵을 사용해서 만들어진다.
  *
+ * 반투명한 드래그 이미지, 겹쳐 쌓인 장들과 프레임은 하드웨어 레이어에 한 번만 그린다.
+ * 드래그하는 동안에는 translation과 scale만 바뀌므로 레이어를 옮기기만 하고 onDraw()는 다시 불리지 않는다.
+ * 따로 합성한 비트맵을 만들지 않으므로 같은 픽셀을 비트맵과 레이어에 두 번 들고 있지 않는다.
+ * 프레임 Drawable은 HDragController가 한 번 읽어 두고 드래그마다 넘겨준다.
+ *
+ * 집어 올릴 때, DropTarget 위에 있을 때, 드롭되어 자리에 놓일 때의 애니메이션은 scale, alpha, translation 같은
+ * 그리기 속성만 ViewPropertyAnimator로 바꾼다. 다시 그리거나 레이아웃하지 않고 display list의 속성만 바뀌지만,
+ * 애니메이션 자체는 UI 스레드의 Choreographer에서 돌아간다. 공개 API로는 RenderThread에서만 돌아가는 애니메이션을 만들 수 없다.
+ * 모든 애니메이션은 이미 그려진 하드웨어 레이어 위에서 하고, 놓일 때의 애니메이션이 끝나면 withEndAction()으로 뷰를 뗀다.
+ *
  * @author 박성현
  */
 public class DragView extends View {
 	private static final int DRAG_SCALE = 0; // In Launcher, value is 40
 
+	/** 드래그 이미지의 투명도 (70%) */
+	private static final int SHADOW_ALPHA = 179;
+
+	/** 집어 올렸을 때의 크기 비율. DropTarget 위에서는 원래 크기(1)로 돌아간다. */
+	private static final float PICKUP_SCALE = 1.1f;
+
+	private static final long PICKUP_DURATION = 150;
+	private static final long HOVER_DURATION = 100;
+	private static final long SETTLE_DURATION = 200;
+
+	private static final Interpolator PICKUP_INTERPOLATOR = new DecelerateInterpolator();
+	private static final Interpolator SETTLE_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+	/** 여러 아이템을 드래그할 때 뒤에 겹쳐 그리는 장 수의 최대값 (맨 앞 포함) */
+	private static final int MAX_STACK_LAYERS = 3;
+
+	/** 겹쳐 그리는 장들 사이의 간격 (dp) */
+	private static final float STACK_OFFSET_DP = 4f;
+
 	private Bitmap mBitmap;
+
+	/** DragSource가 제공한 드래그 이미지. mBitmap 대신 사용되며, 그릴 때 투명도와 프레임을 입힌다. */
+	private Drawable mShadowDrawable;
+	private Matrix mShadowMatrix;
+
+	/** 드래그 이미지에 입힐 투명도. 비트맵으로 만든 경우에만 쓴다. */
+	private Paint mShadowPaint;
+
+	/** 겹쳐 쌓인 장들과 맨 앞 장 위에 그리는 프레임 */
+	private Drawable mFrameDrawable;
+
+	/** 이 드래그 동안 onDraw()가 불린 횟수. 디버그용 */
+	private int mDrawCount;
+
+	private int mWidth;
+	private int mHeight;
+
+	/** 함께 드래그되는 아이템 수 */
+	private int mStackCount = 1;
+	private int mStackOffset;
+
 	private int mRegistrationX;
 	private int mRegistrationY;
 
-	private float mAnimationScale = 0.9f;
+	/** DropTarget 위에 있어서 원래 크기로 돌아가 있는지 */
+	private boolean mHovering;
+
+	/** settle 애니메이션이 끝나면 뷰를 뗀다. 이미 떼어졌으면 아무것도 하지 않는다. */
+	private final Runnable mRemoveAfterSettle = new Runnable() {
+		@Override
+		public void run() {
+			if (mDragLayer != null) {
+				remove();
+			}
+		}
+	};
 
 	private WindowManager.LayoutParams mLayoutParams;
 	private WindowManager mWindowManager;
 
+	/** DragLayer 안에 직접 그려지는 경우의 DragLayer. 별도 윈도우로 띄운 경우에는 null */
+	private DragLayer mDragLayer;
+
+	/** show() 시점의 DragLayer의 화면상 위치 */
+	private int mLayerScreenX;
+	private int mLayerScreenY;
+
+	// temporaries to avoid gc thrash
+	private final int[] mCoordinatesTemp = new int[2];
+
 	/**
 	 * The registration point is the point inside our view that the touch events should
 	 * be centered upon.
@@ -72,15 +145,67 @@ public class DragView extends View {
 		//		scale.setScale(scaleFactor, scaleFactor);
 		//		mBitmap = Bitmap.createBitmap(bitmap, left, top, width, height, scale, true);
 		mBitmap = Bitmap.createBitmap(bitmap, left, top, width, height);
+		mWidth = mBitmap.getWidth();
+		mHeight = mBitmap.getHeight();
+
+		mShadowPaint = new Paint();
+		mShadowPaint.setAlpha(SHADOW_ALPHA);
 
 		// The point in our scaled bitmap that the touch events are located
 		mRegistrationX = registrationX + (DRAG_SCALE / 2);
 		mRegistrationY = registrationY + (DRAG_SCALE / 2);
 	}
 
+	/**
+	 * DragSource가 갖고 있는 Drawable로 DragView를 만든다. Drawable은 뷰가 떨어질 때까지 참조한다.
+	 *
+	 * @param context A context
+	 * @param drawable 드래그 이미지. 원래 뷰에서 쓰던 bounds를 그대로 사용한다.
+	 * @param matrix drawable을 이 뷰의 좌표계로 옮기는 변환 행렬
+	 * @param registrationX The x coordinate of the registration point.
+	 * @param registrationY The y coordinate of the registration point.
+	 * @param width 드래그 이미지의 너비
+	 * @param height 드래그 이미지의 높이
+	 */
+	public DragView(Context context, Drawable drawable, Matrix matrix, int registrationX, int registrationY,
+			int width, int height) {
+		super(context);
+
+		mWindowManager = (WindowManager)context.getSystemService(Context.WINDOW_SERVICE);
+
+		mShadowDrawable = drawable;
+		mShadowMatrix = new Matrix(matrix);
+		mWidth = width;
+		mHeight = height;
+
+		mRegistrationX = registrationX + (DRAG_SCALE / 2);
+		mRegistrationY = registrationY + (DRAG_SCALE / 2);
+	}
+
+	/**
+	 * 함께 드래그되는 아이템 수를 설정한다. 2개 이상이면 드래그 이미지 뒤로 아이템이 겹쳐 쌓인 모양을 그린다.
+	 * show() 전에 불러야 한다.
+	 */
+	void setStackCount(int count) {
+		mStackCount = Math.max(1, count);
+		mStackOffset = (int)(STACK_OFFSET_DP * getResources().getDisplayMetrics().density + 0.5f);
+	}
+
+	/**
+	 * @param frame 겹쳐 쌓인 장들과 맨 앞 장 위에 그릴 프레임. 여러 드래그에서 같은 Drawable을 써도 된다. show() 전에 불러야 한다.
+	 */
+	void setFrameDrawable(Drawable frame) {
+		mFrameDrawable = frame;
+	}
+
+	private int getStackLayers() {
+		return Math.min(mStackCount, MAX_STACK_LAYERS);
+	}
+
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-		setMeasuredDimension(mBitmap.getWidth(), mBitmap.getHeight());
+		int extra = (getStackLayers() - 1) * mStackOffset;
+		setMeasuredDimension(mWidth + extra, mHeight + extra);
 	}
 
 	@Override
@@ -93,43 +218,117 @@ public class DragView extends View {
 		//			p.setAlpha(80);
 		//			canvas.drawRect(0, 0, getWidth(), getHeight(), p);
 		//		}
-		//
-		//		float scale = mAnimationScale;
-		//		if (scale < 0.999f) { // allow for some float error
-		//			float height = mBitmap.getHeight();
-		//			float width = mBitmap.getWidth();
-		//			float offset1 = (width - (width * scale)) / 2;
-		//			float offset2 = (height - (height * scale)) / 2;
-		//			canvas.translate(offset1, offset2);
-		//			canvas.scale(scale, scale);
-		//		}
 
-		Paint p2 = new Paint();
-		//		p2.setAlpha(100);
-		p2.setAlpha(179);
+		// 크기는 scaleX/Y로 바꾸므로 여기에서 canvas를 변환하지 않는다.
+		// 하드웨어 레이어에 그려지므로 보통은 show()한 다음 한 번만 불린다.
+		mDrawCount++;
+
+		final Drawable frame = mFrameDrawable;
 
-		canvas.drawBitmap(mBitmap, 0.0f, 0.0f, p2);
+		// 뒤쪽 장부터 그린다. 맨 앞 장은 (0, 0)에 그려지므로 터치 위치와의 관계는 바뀌지 않는다.
+		if (frame != null) {
+			for (int layer = getStackLayers() - 1; layer > 0; layer--) {
+				int offset = layer * mStackOffset;
+				frame.setBounds(offset, offset, offset + mWidth, offset + mHeight);
+				frame.draw(canvas);
+			}
+		}
+
+		if (mShadowDrawable != null) {
+			// 원래 뷰와 Drawable을 공유하므로 Drawable의 alpha는 건드리지 않고 오프스크린 레이어에 투명도를 입힌다.
+			// ImageView.setImageAlpha()로 바뀌어 있던 alpha도 그대로 둔다. 하드웨어 레이어에 한 번만 그리므로 비용도 한 번뿐이다.
+			int saveCount = canvas.saveLayerAlpha(0, 0, mWidth, mHeight, SHADOW_ALPHA, Canvas.ALL_SAVE_FLAG);
+			canvas.clipRect(0, 0, mWidth, mHeight);
+			canvas.concat(mShadowMatrix);
+			mShadowDrawable.draw(canvas);
+			canvas.restoreToCount(saveCount);
+		} else if (mBitmap != null) {
+			canvas.drawBitmap(mBitmap, 0.0f, 0.0f, mShadowPaint);
+		}
 
-		Drawable d = getContext().getResources().getDrawable(R.drawable.npa_album_order_frame);
-		d.setBounds(0, 0, this.getWidth(), this.getHeight());
-		d.draw(canvas);
+		if (frame != null) {
+			frame.setBounds(0, 0, mWidth, mHeight);
+			frame.draw(canvas);
+		}
+	}
+
+	/**
+	 * @return 이 드래그 동안 onDraw()가 불린 횟수. 하드웨어 레이어를 다시 그린 횟수와 같다.
+	 */
+	public int getDrawCount() {
+		return mDrawCount;
 	}
 
 	@Override
 	protected void onDetachedFromWindow() {
 		super.onDetachedFromWindow();
 
-		mBitmap.recycle();
+		if (mBitmap != null) {
+			mBitmap.recycle();
+			mBitmap = null;
+		}
+
+		// DragSource에서 빌려온 Drawable과 공유하는 프레임은 recycle하지 않는다.
+		mShadowDrawable = null;
+		mShadowMatrix = null;
+		mFrameDrawable = null;
 	}
 
+	/**
+	 * 하드웨어 레이어에 그려진 다음 alpha가 레이어 전체에 입혀지므로 따로 오프스크린 버퍼가 필요 없다.
+	 */
+	@Override
+	public boolean hasOverlappingRendering() {
+		return false;
+	}
+
+	/**
+	 * 터치 위치를 중심으로 크기를 바로 바꾼다. 다시 그리지 않고 그리기 속성만 바꾼다.
+	 */
 	public void setScale(float scale) {
-		if (scale > 1.0f) {
-			mAnimationScale = 1.0f;
-		} else {
-			mAnimationScale = scale;
+		animate().cancel();
+		setScaleX(scale);
+		setScaleY(scale);
+	}
+
+	/**
+	 * 집어 올리는 애니메이션. 원래 크기에서 PICKUP_SCALE로 커진다. show() 다음에 부른다.
+	 */
+	void animatePickup() {
+		setScaleX(1f);
+		setScaleY(1f);
+		animate().scaleX(PICKUP_SCALE).scaleY(PICKUP_SCALE)
+			.setDuration(PICKUP_DURATION).setInterpolator(PICKUP_INTERPOLATOR);
+	}
+
+	/**
+	 * @param hovering DropTarget 위에 있으면 true. 드롭될 셀 크기로 돌아가고, 벗어나면 다시 커진다.
+	 */
+	void setHovering(boolean hovering) {
+		if (mHovering == hovering) {
+			return;
 		}
+		mHovering = hovering;
 
-		invalidate();
+		float scale = hovering ? 1f : PICKUP_SCALE;
+		animate().scaleX(scale).scaleY(scale)
+			.setDuration(HOVER_DURATION).setInterpolator(PICKUP_INTERPOLATOR);
+	}
+
+	/**
+	 * 화면 좌표 (screenX, screenY)에 원래 크기로 놓이면서 사라지는 애니메이션을 하고 뗀다.
+	 * DragLayer 안에 그려지는 경우에만 애니메이션하고, 별도 윈도우이면 바로 뗀다.
+	 */
+	void settleAndRemove(int screenX, int screenY) {
+		if (mDragLayer == null) {
+			remove();
+			return;
+		}
+
+		animate().translationX(screenX - mLayerScreenX).translationY(screenY - mLayerScreenY)
+			.scaleX(1f).scaleY(1f).alpha(0f)
+			.setDuration(SETTLE_DURATION).setInterpolator(SETTLE_INTERPOLATOR)
+			.withEndAction(mRemoveAfterSettle);
 	}
 
 	/**
@@ -140,6 +339,8 @@ public class DragView extends View {
 	 * @param touchY the y coordinate the user touched in screen coordinates
 	 */
 	public void show(IBinder windowToken, int touchX, int touchY) {
+		setLayerType(LAYER_TYPE_HARDWARE, null);
+
 		WindowManager.LayoutParams lp;
 		int pixelFormat;
 
@@ -160,9 +361,38 @@ public class DragView extends View {
 		lp.setTitle("DragView");
 		mLayoutParams = lp;
 
+		setPivotX(mRegistrationX);
+		setPivotY(mRegistrationY);
+
 		mWindowManager.addView(this, lp);
 	}
 
+	/**
+	 * 별도의 윈도우를 만들지 않고 DragLayer의 자식으로 추가해서 보여준다.
+	 * 이후 move()는 translationX/Y만 바꾸기 때문에 WindowManager를 거치지 않고, 하드웨어 레이어를 그대로 옮기기만 한다.
+	 * DragLayer 영역 바깥으로 나간 부분은 잘려서 보인다.
+	 *
+	 * @param dragLayer 드래그 이미지를 그릴 DragLayer
+	 * @param touchX the x coordinate the user touched in screen coordinates
+	 * @param touchY the y coordinate the user touched in screen coordinates
+	 */
+	public void show(DragLayer dragLayer, int touchX, int touchY) {
+		mDragLayer = dragLayer;
+
+		int[] loc = mCoordinatesTemp;
+		dragLayer.getLocationOnScreen(loc);
+		mLayerScreenX = loc[0];
+		mLayerScreenY = loc[1];
+
+		setLayerType(LAYER_TYPE_HARDWARE, null);
+		setPivotX(mRegistrationX);
+		setPivotY(mRegistrationY);
+		setTranslationX(touchX - mRegistrationX - mLayerScreenX);
+		setTranslationY(touchY - mRegistrationY - mLayerScreenY);
+
+		dragLayer.addDragView(this);
+	}
+
 	/**
 	 * Move the window containing this view.
 	 *
@@ -170,6 +400,12 @@ public class DragView extends View {
 	 * @param touchY the y coordinate the user touched in screen coordinates
 	 */
 	void move(int touchX, int touchY) {
+		if (mDragLayer != null) {
+			setTranslationX(touchX - mRegistrationX - mLayerScreenX);
+			setTranslationY(touchY - mRegistrationY - mLayerScreenY);
+			return;
+		}
+
 		// This is what was done in the Launcher code.
 		WindowManager.LayoutParams lp = mLayoutParams;
 		lp.x = touchX - mRegistrationX;
@@ -178,6 +414,17 @@ public class DragView extends View {
 	}
 
 	void remove() {
+		// settle 중에 cancel()하면 end action이 불리므로, 그 전에 mDragLayer를 비워서 두 번 떼지 않게 한다.
+		DragLayer dragLayer = mDragLayer;
+		mDragLayer = null;
+
+		animate().cancel();
+
+		if (dragLayer != null) {
+			dragLayer.removeDragView(this);
+			return;
+		}
+
 		mWindowManager.removeView(this);
 	}
 }
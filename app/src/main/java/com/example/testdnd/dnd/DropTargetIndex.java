@@ -0,0 +1,273 @@
+/*
+ * @(#)DropTargetIndex.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import java.util.Arrays;
+
+import android.graphics.Rect;
+import android.util.SparseIntArray;
+import android.view.View;
+
+/**
+ * DropTarget들의 히트 영역을 스크롤 컨텐츠 좌표계로 저장해 두는 인덱스.
+ *
+ * 드래그가 시작될 때 한 번만 뷰 계층을 훑어서 각 DropTarget의 영역을 left 기준으로 정렬해 두고,
+ * 이후 MOVE 이벤트마다 현재 scrollX만 반영해서 이진 탐색으로 DropTarget을 찾는다.
+ * 따라서 터치 이벤트마다 getLocationOnScreen()으로 부모 체인을 따라가는 일이 없다.
+ *
+ * 드래그 중에 셀이 재활용되어 등록 내용이 바뀌면 다시 만들지만, 이미 인덱스에 있던 같은 position의 같은 DropTarget은
+ * 저장해 둔 영역을 그대로 쓰고 새로 붙은 DropTarget만 뷰 계층을 훑는다. 배열은 재사용하므로 다시 만들 때 할당하지 않는다.
+ *
+ * 스트립 안의 셀들은 가로로 겹치지 않는다고 가정한다.
+ */
+final class DropTargetIndex {
+	/** 스크롤되는 컨테이너. null이면 화면 좌표를 그대로 사용한다. */
+	private final View scrollContainer;
+
+	/** left 순서로 정렬된 인덱스 */
+	private DropTarget[] targets = new DropTarget[0];
+	private int[] positions = new int[0];
+	private int[] lefts = new int[0];
+	private int[] rights = new int[0];
+	private int[] tops = new int[0];
+	private int[] bottoms = new int[0];
+	private int size;
+
+	/** 다시 만드는 동안 registry 순서로 채우는 배열. 정렬해서 위의 배열로 옮긴다. */
+	private DropTarget[] scratchTargets = new DropTarget[0];
+	private int[] scratchPositions = new int[0];
+	private int[] scratchLefts = new int[0];
+	private int[] scratchRights = new int[0];
+	private int[] scratchTops = new int[0];
+	private int[] scratchBottoms = new int[0];
+
+	/** position -> 정렬된 인덱스에서의 슬롯. 다시 만들 때 이전 영역을 찾는 데 쓴다. */
+	private final SparseIntArray slotByPosition = new SparseIntArray();
+
+	/** 인덱스를 만들 때의 스크롤 컨테이너의 화면상 위치 */
+	private int containerScreenX;
+
+	/** 인덱스를 다시 만들어야 하는지 여부 */
+	private boolean dirty = true;
+
+	/** 인덱스를 만들 때의 DropTargetRegistry.getModCount() 값 */
+	private int registryModCount;
+
+	// temporaries to avoid gc thrash
+	private final Rect mRectTemp = new Rect();
+	private final int[] mCoordinatesTemp = new int[2];
+	private long[] sortKeys = new long[0];
+
+	DropTargetIndex(View scrollContainer) {
+		this.scrollContainer = scrollContainer;
+	}
+
+	/**
+	 * 다음 조회 때 인덱스를 다시 만들도록 표시한다.
+	 */
+	void invalidate() {
+		dirty = true;
+	}
+
+	/**
+	 * @return 명시적으로 invalidate()되었거나 인덱스를 만든 후에 registry의 내용이 바뀌었으면 true
+	 */
+	boolean isDirty(DropTargetRegistry registry) {
+		return dirty || registryModCount != registry.getModCount();
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * 주어진 DropTarget들로 인덱스를 만든다.
+	 * invalidate()나 clear() 다음이면 모든 DropTarget의 영역을 새로 구하고, 그렇지 않으면 인덱스에 없던 DropTarget만 새로 구한다.
+	 *
+	 * @param dropTargets 인덱스에 넣을 DropTarget들
+	 */
+	void rebuild(DropTargetRegistry dropTargets) {
+		final boolean reuse = !dirty;
+
+		// 드래그 중에는 스크롤 컨테이너가 화면에서 움직이지 않으므로 다시 구하지 않는다.
+		if (!reuse) {
+			containerScreenX = 0;
+			if (scrollContainer != null) {
+				scrollContainer.getLocationOnScreen(mCoordinatesTemp);
+				containerScreenX = mCoordinatesTemp[0];
+			}
+		}
+
+		final int count = dropTargets.size();
+		ensureCapacity(count);
+
+		for (int i = 0; i < count; i++) {
+			final DropTarget target = dropTargets.targetAt(i);
+			final int position = dropTargets.positionAt(i);
+
+			int slot = reuse ? slotByPosition.get(position, -1) : -1;
+			if (slot >= 0 && targets[slot] == target) {
+				scratchLefts[i] = lefts[slot];
+				scratchRights[i] = rights[slot];
+				scratchTops[i] = tops[slot];
+				scratchBottoms[i] = bottoms[slot];
+			} else {
+				measure(target, i);
+			}
+			scratchTargets[i] = target;
+			scratchPositions[i] = position;
+
+			// 상위 32비트에 left, 하위 32비트에 원래 인덱스를 넣어서 박싱 없이 정렬한다.
+			sortKeys[i] = ((long)scratchLefts[i] << 32) | i;
+		}
+
+		Arrays.sort(sortKeys, 0, count);
+		applySortOrder(count);
+
+		size = count;
+		dirty = false;
+		registryModCount = dropTargets.getModCount();
+	}
+
+	/**
+	 * target의 영역을 스크롤 컨텐츠 좌표계로 구해서 scratch 배열의 index에 넣는다. 뷰 계층을 한 번 훑는다.
+	 */
+	private void measure(DropTarget target, int index) {
+		final Rect r = mRectTemp;
+		final int[] loc = mCoordinatesTemp;
+
+		target.getHitRect(r);
+		target.getLocationOnScreen(loc);
+
+		int scrollX = scrollContainer != null ? scrollContainer.getScrollX() : 0;
+
+		// live reorder로 밀려난 셀도 원래 자리(slot)로 찾도록 translationX는 빼고 계산한다.
+		int left = loc[0] - containerScreenX + scrollX - getTranslationOffset(target);
+		scratchLefts[index] = left;
+		scratchRights[index] = left + r.width();
+		scratchTops[index] = loc[1];
+		scratchBottoms[index] = loc[1] + r.height();
+	}
+
+	/**
+	 * 화면 좌표 (screenX, screenY)에 있는 DropTarget의 슬롯을 찾는다.
+	 * 찾은 슬롯은 targetAt(), positionAt()으로 조회한다.
+	 *
+	 * @param screenX 화면상의 x 좌표
+	 * @param screenY 화면상의 y 좌표
+	 * @param dropCoordinates 찾은 DropTarget 내부의 로컬 좌표가 담긴다.
+	 * @return 찾은 슬롯. 없으면 -1
+	 */
+	int find(int screenX, int screenY, int[] dropCoordinates) {
+		int scrollX = scrollContainer != null ? scrollContainer.getScrollX() : 0;
+		int x = screenX - containerScreenX + scrollX;
+
+		// left <= x 인 마지막 항목을 찾는다.
+		int low = 0;
+		int high = size - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (lefts[mid] <= x) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		if (found < 0 || x >= rights[found] || screenY < tops[found] || screenY >= bottoms[found]) {
+			return -1;
+		}
+
+		dropCoordinates[0] = x - lefts[found];
+		dropCoordinates[1] = screenY - tops[found];
+
+		return found;
+	}
+
+	DropTarget targetAt(int slot) {
+		return targets[slot];
+	}
+
+	int positionAt(int slot) {
+		return positions[slot];
+	}
+
+	void clear() {
+		Arrays.fill(targets, 0, size, null);
+		slotByPosition.clear();
+		size = 0;
+		dirty = true;
+	}
+
+	/**
+	 * @return target부터 스크롤 컨테이너 바로 아래까지의 translationX 합
+	 */
+	private int getTranslationOffset(DropTarget target) {
+		if (!(target instanceof View)) {
+			return 0;
+		}
+
+		float offset = 0f;
+		View view = (View)target;
+		while (view != null && view != scrollContainer) {
+			offset += view.getTranslationX();
+
+			Object parent = view.getParent();
+			view = parent instanceof View ? (View)parent : null;
+		}
+
+		return Math.round(offset);
+	}
+
+	/**
+	 * scratch 배열을 정렬된 순서로 인덱스 배열에 옮기고 slotByPosition을 다시 채운다.
+	 */
+	private void applySortOrder(int count) {
+		slotByPosition.clear();
+
+		for (int i = 0; i < count; i++) {
+			int from = (int)(sortKeys[i] & 0xFFFFFFFFL);
+			targets[i] = scratchTargets[from];
+			positions[i] = scratchPositions[from];
+			lefts[i] = scratchLefts[from];
+			rights[i] = scratchRights[from];
+			tops[i] = scratchTops[from];
+			bottoms[i] = scratchBottoms[from];
+
+			slotByPosition.put(positions[i], i);
+		}
+
+		// 빠진 DropTarget을 붙잡고 있지 않도록 한다.
+		Arrays.fill(targets, count, Math.max(count, size), null);
+		Arrays.fill(scratchTargets, 0, count, null);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= lefts.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, lefts.length * 2 + 16);
+		targets = Arrays.copyOf(targets, newCapacity);
+		positions = Arrays.copyOf(positions, newCapacity);
+		lefts = Arrays.copyOf(lefts, newCapacity);
+		rights = Arrays.copyOf(rights, newCapacity);
+		tops = Arrays.copyOf(tops, newCapacity);
+		bottoms = Arrays.copyOf(bottoms, newCapacity);
+		sortKeys = Arrays.copyOf(sortKeys, newCapacity);
+
+		scratchTargets = new DropTarget[newCapacity];
+		scratchPositions = new int[newCapacity];
+		scratchLefts = new int[newCapacity];
+		scratchRights = new int[newCapacity];
+		scratchTops = new int[newCapacity];
+		scratchBottoms = new int[newCapacity];
+	}
+}
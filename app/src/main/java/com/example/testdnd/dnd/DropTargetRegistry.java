@@ -0,0 +1,172 @@
+/*
+ * @(#)DropTargetRegistry.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import android.util.SparseArray;
+import android.view.View;
+
+import com.example.testdnd.R;
+
+/**
+ * position별로 DropTarget을 보관하는 레지스트리.
+ *
+ * DropTarget이 뷰인 경우에는 윈도우에 붙어 있는 동안에만 보관한다.
+ * 뷰가 떨어지면(detach) 자동으로 빠지고, 다시 붙으면(attach) 마지막으로 등록된 position으로 다시 들어간다.
+ * 재활용된 뷰를 다른 position으로 다시 등록하면 이전 position의 등록은 자동으로 해제된다.
+ * 따라서 보관하는 DropTarget의 수는 앨범 크기가 아니라 화면에 붙어 있는 셀의 수에 비례한다.
+ *
+ * unregister()와 clear()는 떨어져 있는 뷰에도 적용되어서, 그 뷰가 다시 붙어도 이전 position으로 돌아오지 않는다.
+ *
+ * 뷰가 아닌 DropTarget은 unregister()나 clear()를 부를 때까지 보관한다.
+ */
+final class DropTargetRegistry {
+	private final SparseArray<DropTarget> targets = new SparseArray<DropTarget>();
+
+	/** 등록 내용이 바뀔 때마다 증가한다. DropTargetIndex가 다시 만들어져야 하는지 판단하는 데 사용한다. */
+	private int modCount;
+
+	/** 뷰에 붙여 둔 Binding들. 떨어진 뷰의 등록도 해제할 수 있도록 기억하지만, 약하게 참조하므로 뷰를 붙잡지 않는다. */
+	private final Set<Binding> bindings = Collections.newSetFromMap(new WeakHashMap<Binding, Boolean>());
+
+	/**
+	 * 뷰에 태그로 붙어서 그 뷰가 어느 position에 등록되어 있는지 기억하고, attach/detach에 따라 등록을 바꾼다.
+	 * 레지스트리는 Binding을 약하게만 참조하므로, 떨어진 뷰는 레지스트리에 의해 메모리에 붙잡히지 않는다.
+	 */
+	private class Binding implements View.OnAttachStateChangeListener {
+		final DropTarget target;
+		int position = -1;
+
+		Binding(DropTarget target) {
+			this.target = target;
+		}
+
+		@Override
+		public void onViewAttachedToWindow(View v) {
+			if (position >= 0) {
+				put(position, target);
+			}
+		}
+
+		@Override
+		public void onViewDetachedFromWindow(View v) {
+			if (position >= 0) {
+				removeIfSame(position, target);
+			}
+		}
+	}
+
+	/**
+	 * DropTarget을 position에 등록한다. 같은 position에 다른 DropTarget이 있었다면 교체된다.
+	 */
+	void register(int position, DropTarget target) {
+		if (!(target instanceof View)) {
+			put(position, target);
+			return;
+		}
+
+		final View view = (View)target;
+		Binding binding = (Binding)view.getTag(R.id.drop_target_binding);
+		if (binding == null) {
+			binding = new Binding(target);
+			view.setTag(R.id.drop_target_binding, binding);
+			view.addOnAttachStateChangeListener(binding);
+			bindings.add(binding);
+		} else if (binding.position >= 0 && binding.position != position) {
+			// 재활용되어 다른 position으로 바인딩되었다.
+			removeIfSame(binding.position, target);
+		}
+
+		binding.position = position;
+
+		if (isAttached(view)) {
+			put(position, target);
+		}
+	}
+
+	/**
+	 * position의 DropTarget 등록을 해제한다. 뷰라면 떨어져 있더라도 attach 상태 추적을 그만둔다.
+	 */
+	void unregister(int position) {
+		Iterator<Binding> iterator = bindings.iterator();
+		while (iterator.hasNext()) {
+			Binding binding = iterator.next();
+			if (binding.position == position) {
+				iterator.remove();
+				release(binding);
+			}
+		}
+
+		if (targets.get(position) != null) {
+			targets.remove(position);
+			modCount++;
+		}
+	}
+
+	void clear() {
+		for (Binding binding : bindings) {
+			release(binding);
+		}
+		bindings.clear();
+
+		targets.clear();
+		modCount++;
+	}
+
+	DropTarget get(int position) {
+		return targets.get(position);
+	}
+
+	/**
+	 * @return 지금 보관하고 있는 DropTarget 수
+	 */
+	int size() {
+		return targets.size();
+	}
+
+	int positionAt(int index) {
+		return targets.keyAt(index);
+	}
+
+	DropTarget targetAt(int index) {
+		return targets.valueAt(index);
+	}
+
+	int getModCount() {
+		return modCount;
+	}
+
+	private void put(int position, DropTarget target) {
+		if (targets.get(position) != target) {
+			targets.put(position, target);
+			modCount++;
+		}
+	}
+
+	private void removeIfSame(int position, DropTarget target) {
+		if (targets.get(position) == target) {
+			targets.remove(position);
+			modCount++;
+		}
+	}
+
+	private static void release(Binding binding) {
+		final View view = (View)binding.target;
+		view.removeOnAttachStateChangeListener(binding);
+		view.setTag(R.id.drop_target_binding, null);
+		binding.position = -1;
+	}
+
+	private static boolean isAttached(View view) {
+		return view.getWindowToken() != null;
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * @(#)FrameAutoScroller.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Choreographer의 frame callback으로 vsync마다 스크롤하는 auto-scroll 엔진.
+ *
+ * 가장자리까지의 거리로 연속적인 속도(px/s)를 정하고, 이전 프레임과의 시간 차이만큼만 이동시키므로
+ * 프레임이 밀리더라도 스크롤 속도가 일정하게 유지된다.
+ * 별도의 스레드 없이 UI 스레드에서만 동작한다.
+ */
+final class FrameAutoScroller implements Choreographer.FrameCallback {
+	/** 가장자리에 완전히 붙었을 때의 최대 속도 (dp/s) */
+	private static final float MAX_VELOCITY_DP = 640f;
+
+	/** 프레임이 오래 밀렸을 때 한 번에 너무 많이 스크롤되지 않도록 제한하는 시간 (ns) */
+	private static final long MAX_FRAME_INTERVAL_NANOS = 100L * 1000 * 1000;
+
+	/**
+	 * 한 번 스크롤될 때마다 불린다. 스크롤로 인해 손가락 아래의 DropTarget이 바뀔 수 있으므로
+	 * 이 콜백에서 hit test를 다시 해야 한다.
+	 */
+	interface Callback {
+		void onAutoScrolled(int dx);
+	}
+
+	private final View scrollView;
+	private final Callback callback;
+	private final float maxVelocity;
+
+	/** 현재 속도 (px/s). 음수면 왼쪽으로 스크롤 */
+	private float velocity;
+
+	/** 정수 픽셀로 스크롤하고 남은 소수점 이하 이동량 */
+	private float remainder;
+
+	private long lastFrameTimeNanos;
+
+	private boolean running;
+
+	FrameAutoScroller(View scrollView, Callback callback) {
+		this.scrollView = scrollView;
+		this.callback = callback;
+		this.maxVelocity = MAX_VELOCITY_DP * scrollView.getResources().getDisplayMetrics().density;
+	}
+
+	/**
+	 * 가장자리 영역 안에서의 위치로 속도를 정한다.
+	 *
+	 * @param edgeRatio -1 ~ 1 사이의 값. 0이면 멈추고, 절대값이 클수록 가장자리에 가깝다. 음수면 왼쪽으로 스크롤된다.
+	 */
+	void setEdgeRatio(float edgeRatio) {
+		if (edgeRatio > 1f) {
+			edgeRatio = 1f;
+		} else if (edgeRatio < -1f) {
+			edgeRatio = -1f;
+		}
+
+		// 가장자리에 가까울수록 급격히 빨라지도록 제곱을 사용한다.
+		velocity = edgeRatio * Math.abs(edgeRatio) * maxVelocity;
+
+		if (velocity == 0f) {
+			stop();
+		} else if (!running) {
+			running = true;
+			remainder = 0f;
+			lastFrameTimeNanos = 0;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+
+	float getVelocity() {
+		return running ? velocity : 0f;
+	}
+
+	boolean isRunning() {
+		return running;
+	}
+
+	void stop() {
+		if (running) {
+			running = false;
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+
+		velocity = 0f;
+		remainder = 0f;
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!running) {
+			return;
+		}
+
+		if (lastFrameTimeNanos != 0) {
+			long interval = Math.min(frameTimeNanos - lastFrameTimeNanos, MAX_FRAME_INTERVAL_NANOS);
+			float distance = velocity * interval / 1000000000f + remainder;
+			int dx = (int)distance;
+			remainder = distance - dx;
+
+			if (dx != 0) {
+				int oldScrollX = scrollView.getScrollX();
+				scrollView.scrollBy(dx, 0);
+
+				int scrolled = scrollView.getScrollX() - oldScrollX;
+				if (scrolled != 0) {
+					callback.onAutoScrolled(scrolled);
+				} else {
+					// 끝까지 스크롤되었으면 남은 이동량을 쌓아두지 않는다.
+					remainder = 0f;
+				}
+			}
+		}
+
+		lastFrameTimeNanos = frameTimeNanos;
+
+		// 콜백 안에서 stop()이 불렸을 수 있다.
+		if (running) {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+}
@@ -7,25 +7,31 @@
 
 package com.example.testdnd.dnd;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Rect;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.util.SparseBooleanArray;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.view.inputmethod.InputMethodManager;
 
+import com.example.testdnd.R;
 import com.example.testdnd.VisibleChildDetectableHorizontalScrollView;
 
 /**
@@ -57,7 +63,13 @@ public class HDragController {
 
 	public static enum AutoScrollingType {
 		BY_TOUCH_MOVE, // 터치 move 방식으로. 계속 움직여야 함.
-		BY_TIMER // 타이머 방식, 터치한 상태로 안 움직여도 스크롤 됨.
+		BY_TIMER, // 타이머 방식, 터치한 상태로 안 움직여도 스크롤 됨.
+		BY_FRAME // vsync 방식, 터치한 상태로 안 움직여도 매 프레임 가장자리와의 거리에 비례한 속도로 스크롤 됨.
+	}
+
+	public static enum DragViewRenderingType {
+		WINDOW, // DragView를 별도의 서브 패널 윈도우로 띄운다. 움직일 때마다 WindowManager를 거친다.
+		LAYER // DragView를 DragLayer 안에 그린다. 움직일 때는 translation만 바뀐다. setDragLayer()가 필요함.
 	}
 
 	private static final int VIBRATE_DURATION = 35;
@@ -69,11 +81,31 @@ public class HDragController {
 
 	private AutoScrollingType autoScrollingType = AutoScrollingType.BY_TOUCH_MOVE;
 
+	private DragViewRenderingType dragViewRenderingType = DragViewRenderingType.WINDOW;
+
+	/** LAYER 방식일 때 DragView를 그릴 DragLayer */
+	private DragLayer mDragLayer;
+
 	private boolean isAutoScrollable;
 
+	private static final long REFLOW_ANIMATION_DURATION = 150;
+
+	/** 드래그하는 동안 주변 셀을 밀어내는 live reorder 모드 */
+	private boolean isLiveReorderEnabled;
+
+	/** live reorder에서 지금 빈칸을 만든 position. 없으면 -1 */
+	private int mReflowTargetPosition = -1;
+
+	/** live reorder에서 셀 하나의 너비 */
+	private int mReflowStride;
+
 	// temporaries to avoid gc thrash
-	private Rect mRectTemp = new Rect();
 	private final int[] mCoordinatesTemp = new int[2];
+	private final Matrix mShadowMatrixTemp = new Matrix();
+
+	/** DragSource가 드래그 이미지를 주지 못할 때 재사용하는 스냅샷 비트맵 */
+	private Bitmap mSnapshotBitmap;
+	private final Canvas mSnapshotCanvas = new Canvas();
 
 	/** Whether or not we're dragging. */
 	public boolean mDragging;
@@ -102,14 +134,66 @@ public class HDragController {
 	/** The data associated with the object being dragged. 뷰가 재활용되기 때문에 여기서는 드래그를 시작한 position을 저장해 놓는 용도로 사용 */
 	public Object mDragInfo;
 
+	/** 드래그를 시작한 position. mDragInfo가 Integer가 아니면 -1 */
+	private int mDragPosition = -1;
+
+	/** 이번 드래그로 옮겨지는 position들. 오름차순으로 정렬되어 있다. */
+	private int[] mDragPositions = new int[1];
+	private int mDragPositionCount;
+
+	/** 드롭되어 드래그한 아이템이 가게 될 position. 드롭되지 않았으면 -1이고, 드래그 이미지는 원래 자리로 돌아간다. */
+	private int mSettlePosition = -1;
+
+	/** 여러 아이템을 선택해서 한 번에 드래그할 수 있는지 여부 */
+	private boolean isMultiSelectMode;
+
+	/** 다중 선택 모드에서 선택된 position들 */
+	private final SparseBooleanArray mSelectedPositions = new SparseBooleanArray();
+
+	private OnItemsMovedListener mItemsMovedListener;
+
+	private final DragTraceRecorder mTrace = DragTraceRecorder.getInstance();
+
+	/** DragEventTarget에게 전달하는 이벤트. 드래그하는 동안 계속 재사용한다. */
+	private final DragEvent mDragEvent = new DragEvent();
+
 	/** The view that moves around while you drag.  */
 	private DragView mDragView;
 
-	/** Who can receive drop events */
-	private Map<Integer, DropTarget> mDropTargets = new HashMap<Integer, DropTarget>();
+	/** DragView가 겹쳐 쌓인 장들과 맨 앞 장 위에 그리는 프레임. 모든 드래그에서 같이 쓴다. */
+	private final Drawable mDragFrame;
+
+	/** Who can receive drop events. 윈도우에 붙어 있는 DropTarget만 position별로 보관한다. */
+	private final DropTargetRegistry mDropTargets = new DropTargetRegistry();
+
+	/** 드래그 중 DropTarget을 찾기 위한 스크롤 컨텐츠 좌표계 인덱스 */
+	private DropTargetIndex mDropTargetIndex;
 
 	private DragListener mListener;
 
+	private DragLatencyListener mLatencyListener;
+
+	/** 이번 드래그의 터치-화면 지연 시간 분포 */
+	private final LatencyHistogram mLatencyHistogram = new LatencyHistogram();
+
+	/** DragView 위치는 바뀌었지만 아직 그려지지 않은 마지막 MOVE 이벤트의 시간. 없으면 -1 */
+	private long mPendingMoveEventTime = -1;
+
+	/**
+	 * DragView가 그려지기 직전에 불린다. 이 프레임에 반영되는 마지막 MOVE 이벤트부터 지금까지의 시간을 기록한다.
+	 * 같은 프레임 안에서 앞선 MOVE 이벤트의 위치는 화면에 나타나지 않으므로 기록하지 않는다.
+	 */
+	private final ViewTreeObserver.OnPreDrawListener mLatencyPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			if (mPendingMoveEventTime >= 0) {
+				mLatencyHistogram.record(SystemClock.uptimeMillis() - mPendingMoveEventTime);
+				mPendingMoveEventTime = -1;
+			}
+			return true;
+		}
+	};
+
 	/** The window token used as the parent for the DragView. */
 	private IBinder mWindowToken;
 
@@ -117,6 +201,12 @@ public class HDragController {
 
 	private DropTarget mLastDropTarget;
 
+	/** mLastDropTarget의 position */
+	private int mLastDropTargetPosition = -1;
+
+	/** 마지막으로 findDropTarget()에서 찾은 DropTarget의 position */
+	private int mFoundTargetPosition = -1;
+
 	private InputMethodManager mInputMethodManager;
 
 	private VisibleChildDetectableHorizontalScrollView adapterView;
@@ -133,10 +223,24 @@ public class HDragController {
 
 	private int scrollSpeed;
 
-	private Thread timer;
+	/** 돌고 있는 타이머 스레드. 그 스레드가 끝날 때 자기 자신일 때만 비운다. */
+	private final AtomicReference<Thread> timer = new AtomicReference<Thread>();
 
 	/** 타이머가 계속 실행되어야 하는지 여부 */
-	private boolean shouldRun;
+	private volatile boolean shouldRun;
+
+	/** BY_FRAME 방식에서 사용하는 auto-scroll 엔진 */
+	private FrameAutoScroller frameAutoScroller;
+
+	/** MOVE 이벤트를 프레임 단위로 합쳐서 처리할지 여부 */
+	private boolean isMoveCoalescingEnabled;
+
+	/** isMoveCoalescingEnabled가 true일 때 MOVE 이벤트를 프레임마다 한 번으로 합친다. */
+	private MoveCoalescer moveCoalescer;
+
+	/** 마지막 MOVE 이벤트의 화면 좌표. auto-scroll 후 hit test를 다시 할 때 사용한다. */
+	private int mLastScreenX;
+	private int mLastScreenY;
 
 	private final int timerInterval = 50;
 
@@ -149,6 +253,30 @@ public class HDragController {
 		public void onDragEnd();
 	}
 
+	/**
+	 * 드래그가 끝날 때 그 드래그 동안의 터치-화면 지연 시간 분포를 받는 인터페이스
+	 */
+	public interface DragLatencyListener {
+		/**
+		 * @param controller 드래그를 처리한 HDragController. 렌더링 방식 등을 확인할 때 사용한다.
+		 * @param histogram 이번 드래그의 지연 시간 분포. 다음 드래그에서 재사용되므로 필요한 값은 복사해 두어라.
+		 */
+		public void onDragLatencyMeasured(HDragController controller, LatencyHistogram histogram);
+	}
+
+	/**
+	 * 드롭으로 아이템들의 순서가 바뀌어야 할 때 알림을 받는 인터페이스.
+	 * 여러 아이템을 드래그한 경우에도 드롭마다 한 번만 불리므로, 데이터를 한 번에 바꾸고 화면도 한 번만 갱신하면 된다.
+	 */
+	public interface OnItemsMovedListener {
+		/**
+		 * @param positions 옮겨진 아이템들의 원래 position. 오름차순으로 정렬되어 있다. 호출이 끝난 뒤에는 재사용되므로 보관하지 마라.
+		 * @param count positions에서 유효한 개수
+		 * @param targetPosition 드롭된 position. {@link BatchReorder#moveAll}에 그대로 넘기면 된다.
+		 */
+		public void onItemsMoved(int[] positions, int count, int targetPosition);
+	}
+
 	/**
 	 * 생성자
 	 * 
@@ -161,6 +289,10 @@ public class HDragController {
 		mVibrator = (Vibrator)context.getSystemService(Context.VIBRATOR_SERVICE);
 
 		this.adapterView = adapterView;
+		this.mDropTargetIndex = new DropTargetIndex(adapterView);
+
+		// 드래그마다 리소스를 찾지 않도록 한 번만 읽어 둔다.
+		this.mDragFrame = context.getResources().getDrawable(R.drawable.npa_album_order_frame);
 
 		setAutoScrollable(true);
 	}
@@ -176,15 +308,40 @@ public class HDragController {
 	 * @param dragAction The drag action: either {@link #DRAG_ACTION_MOVE} or
 	 *        {@link #DRAG_ACTION_COPY}
 	 */
+	public void startDrag(View v, DragSource source, int position, int dragAction) {
+		startDrag(v, source, Integer.valueOf(position), dragAction);
+	}
+
+	/**
+	 * 드래그를 시작한다.
+	 * dragInfo가 Integer이면 드래그를 시작한 position으로 취급되어 DragEvent로 전달된다.
+	 *
+	 * @param v The view that is being dragged
+	 * @param source An object representing where the drag originated
+	 * @param dragInfo The data associated with the object that is being dragged
+	 * @param dragAction The drag action: either {@link #DRAG_ACTION_MOVE} or
+	 *        {@link #DRAG_ACTION_COPY}
+	 */
 	public void startDrag(View v, DragSource source, Object dragInfo, int dragAction) {
 		mOriginator = v;
 
-		Bitmap b = getViewBitmap(v);
+		// DragSource가 이미 갖고 있는 Drawable을 DragView가 시작할 때 한 번 합성한다. 없을 때만 재사용하는 스냅샷 비트맵에 그린다.
+		final Matrix shadowMatrix = mShadowMatrixTemp;
+		shadowMatrix.reset();
+		Drawable shadow = source.getDragShadowDrawable(shadowMatrix);
 
-		if (b == null) {
-			Log.e(TAG, "can't make bitmap of originator.");
+		if (shadow == null) {
+			Bitmap snapshot = getSnapshotBitmap(v);
 
-			return;
+			if (snapshot == null) {
+				Log.e(TAG, "can't make bitmap of originator.");
+
+				return;
+			}
+
+			shadow = new BitmapDrawable(mContext.getResources(), snapshot);
+			shadow.setBounds(0, 0, snapshot.getWidth(), snapshot.getHeight());
+			shadowMatrix.reset();
 		}
 
 		int[] loc = mCoordinatesTemp;
@@ -192,15 +349,25 @@ public class HDragController {
 		int screenX = loc[0];
 		int screenY = loc[1];
 
-		startDrag(b, screenX, screenY, 0, 0, b.getWidth(), b.getHeight(),
-			source, dragInfo, dragAction);
+		prepareDrag(screenX, screenY, source, dragInfo, dragAction);
+
+		DragView dragView = new DragView(mContext, shadow, shadowMatrix, (int)mTouchOffsetX, (int)mTouchOffsetY,
+			v.getWidth(), v.getHeight());
+		dragView.setStackCount(mDragPositionCount);
+		showDragView(dragView);
 
-		b.recycle();
+		// 셀들을 옮길 때의 간격. 모든 셀의 너비가 같다고 가정한다.
+		mReflowStride = getCellContainer(v).getWidth();
 
 		if (dragAction == DRAG_ACTION_MOVE) {
 			v.setVisibility(View.INVISIBLE);
 
-			((View)v.getParent()).setVisibility(View.INVISIBLE);
+			getCellContainer(v).setVisibility(View.INVISIBLE);
+
+			// 함께 드래그되는 다른 아이템들 중 화면에 붙어 있는 것들도 숨긴다.
+			for (int i = 0; i < mDragPositionCount; i++) {
+				setDropTargetVisibility(mDragPositions[i], View.INVISIBLE);
+			}
 		}
 	}
 
@@ -223,6 +390,19 @@ public class HDragController {
 	public void startDrag(Bitmap b, int screenX, int screenY,
 			int textureLeft, int textureTop, int textureWidth, int textureHeight,
 			DragSource source, Object dragInfo, int dragAction) {
+		prepareDrag(screenX, screenY, source, dragInfo, dragAction);
+
+		showDragView(new DragView(mContext, b, (int)mTouchOffsetX, (int)mTouchOffsetY,
+			textureLeft, textureTop, textureWidth, textureHeight));
+	}
+
+	/**
+	 * DragView를 띄우기 전까지의 드래그 시작 처리를 한다.
+	 *
+	 * @param screenX The x position on screen of the left-top of the drag image.
+	 * @param screenY The y position on screen of the left-top of the drag image.
+	 */
+	private void prepareDrag(int screenX, int screenY, DragSource source, Object dragInfo, int dragAction) {
 		if (PROFILE_DRAWING_DURING_DRAG) {
 			android.os.Debug.startMethodTracing("Launcher");
 		}
@@ -238,56 +418,122 @@ public class HDragController {
 			mListener.onDragStart(source, dragInfo, dragAction);
 		}
 
-		int registrationX = ((int)mMotionDownX) - screenX;
-		int registrationY = ((int)mMotionDownY) - screenY;
-
 		mTouchOffsetX = mMotionDownX - screenX;
 		mTouchOffsetY = mMotionDownY - screenY;
 
 		mDragging = true;
 		mDragSource = source;
 		mDragInfo = dragInfo;
+		mDragPosition = dragInfo instanceof Integer ? (Integer)dragInfo : -1;
+		collectDragPositions();
+
+		mTrace.record(DragTraceRecorder.TYPE_DRAG_START, (int)mMotionDownX, (int)mMotionDownY, mDragPosition, 0f);
+
+		if (moveCoalescer != null) {
+			moveCoalescer.resetCounters();
+		}
+
+		// 드래그하는 동안에는 뷰 계층을 훑지 않도록 시작할 때 한 번만 인덱스를 만든다.
+		mDropTargetIndex.rebuild(mDropTargets);
 
 		mVibrator.vibrate(VIBRATE_DURATION);
+	}
+
+	private void showDragView(DragView dragView) {
+		mDragView = dragView;
+		dragView.setFrameDrawable(mDragFrame);
+
+		mLatencyHistogram.reset();
+		mPendingMoveEventTime = -1;
+		if (mLatencyListener != null) {
+			dragView.getViewTreeObserver().addOnPreDrawListener(mLatencyPreDrawListener);
+		}
+
+		if (dragViewRenderingType == DragViewRenderingType.LAYER && mDragLayer != null) {
+			dragView.show(mDragLayer, (int)mMotionDownX, (int)mMotionDownY);
+		} else {
+			dragView.show(mWindowToken, (int)mMotionDownX, (int)mMotionDownY);
+		}
 
-		DragView dragView = mDragView = new DragView(mContext, b, registrationX, registrationY,
-			textureLeft, textureTop, textureWidth, textureHeight);
-		dragView.show(mWindowToken, (int)mMotionDownX, (int)mMotionDownY);
+		dragView.animatePickup();
 	}
 
 	/**
-	 * Draw the view into a bitmap.
+	 * 뷰를 스냅샷 비트맵에 그린다. 크기가 같으면 이전 드래그에서 쓴 비트맵을 그대로 재사용한다.
+	 * DragSource가 드래그 이미지를 제공하지 못할 때만 사용된다.
 	 */
-	private Bitmap getViewBitmap(View v) {
+	private Bitmap getSnapshotBitmap(View v) {
+		int width = v.getWidth();
+		int height = v.getHeight();
+
+		if (width <= 0 || height <= 0) {
+			Log.e(TAG, "failed getSnapshotBitmap(" + v + ")", new RuntimeException());
+			return null;
+		}
+
 		v.clearFocus();
 		v.setPressed(false);
 
-		boolean willNotCache = v.willNotCacheDrawing();
-		v.setWillNotCacheDrawing(false);
+		Bitmap bitmap = mSnapshotBitmap;
+		if (bitmap == null || bitmap.isRecycled() || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+			if (bitmap != null) {
+				bitmap.recycle();
+			}
+			bitmap = mSnapshotBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		} else {
+			bitmap.eraseColor(Color.TRANSPARENT);
+		}
+
+		final Canvas canvas = mSnapshotCanvas;
+		canvas.setBitmap(bitmap);
+		int saveCount = canvas.save();
+		canvas.translate(-v.getScrollX(), -v.getScrollY());
+		v.draw(canvas);
+		canvas.restoreToCount(saveCount);
+
+		return bitmap;
+	}
 
-		// Reset the drawing cache background color to fully transparent
-		// for the duration of this operation
-		int color = v.getDrawingCacheBackgroundColor();
-		v.setDrawingCacheBackgroundColor(0);
+	/**
+	 * 이번 드래그로 옮겨질 position들을 모은다.
+	 * 다중 선택 모드에서 선택된 아이템을 드래그하면 선택된 아이템 전부를, 그 외에는 드래그를 시작한 아이템만 옮긴다.
+	 */
+	private void collectDragPositions() {
+		mDragPositionCount = 0;
 
-		if (color != 0) {
-			v.destroyDrawingCache();
+		if (mDragPosition < 0) {
+			return;
 		}
-		v.buildDrawingCache();
-		Bitmap cacheBitmap = v.getDrawingCache();
-		if (cacheBitmap == null) {
-			Log.e(TAG, "failed getViewBitmap(" + v + ")", new RuntimeException());
-			return null;
+
+		if (isMultiSelectMode && mSelectedPositions.get(mDragPosition)) {
+			final int size = mSelectedPositions.size();
+			if (mDragPositions.length < size) {
+				mDragPositions = new int[size];
+			}
+
+			// SparseBooleanArray의 키는 오름차순으로 정렬되어 있다.
+			for (int i = 0; i < size; i++) {
+				if (mSelectedPositions.valueAt(i)) {
+					mDragPositions[mDragPositionCount++] = mSelectedPositions.keyAt(i);
+				}
+			}
+		} else {
+			mDragPositions[mDragPositionCount++] = mDragPosition;
 		}
+	}
 
-		Bitmap bitmap = Bitmap.createBitmap(cacheBitmap);
+	/**
+	 * position에 등록된 셀과 그 부모를 보이거나 숨긴다. 화면에 붙어 있지 않으면 아무것도 하지 않는다.
+	 */
+	private void setDropTargetVisibility(int position, int visibility) {
+		DropTarget target = mDropTargets.get(position);
+		if (target instanceof View) {
+			View cell = (View)target;
 
-		// Restore the view
-		v.destroyDrawingCache();
-		v.setWillNotCacheDrawing(willNotCache);
-		v.setDrawingCacheBackgroundColor(color);
+			cell.setVisibility(visibility);
 
-		return bitmap;
+			getCellContainer(cell).setVisibility(visibility);
+		}
 	}
 
 	/**
@@ -320,37 +566,82 @@ public class HDragController {
 
 		if (mDragging) {
 			mDragging = false;
+			mTrace.record(DragTraceRecorder.TYPE_DRAG_END, 0, 0, mDragPosition, 0f);
+
 			if (mOriginator != null) {
 				mOriginator.setVisibility(View.VISIBLE);
 
-				((View)mOriginator.getParent()).setVisibility(View.VISIBLE);
+				getCellContainer(mOriginator).setVisibility(View.VISIBLE);
 			}
 
-			if (mDragInfo != null) {
-				DropTarget target = mDropTargets.get(mDragInfo);
-				if (target != null) {
-					ImageCell cell = (ImageCell)target;
-
-					cell.setVisibility(View.VISIBLE);
-
-					((View)cell.getParent()).setVisibility(View.VISIBLE);
-				}
+			for (int i = 0; i < mDragPositionCount; i++) {
+				setDropTargetVisibility(mDragPositions[i], View.VISIBLE);
 			}
+			mDragPositionCount = 0;
 
 			if (mListener != null) {
 				mListener.onDragEnd();
 			}
 
 			if (mDragView != null) {
-				mDragView.remove();
+				ViewTreeObserver observer = mDragView.getViewTreeObserver();
+				if (observer.isAlive()) {
+					observer.removeOnPreDrawListener(mLatencyPreDrawListener);
+				}
+
+				settleDragView(mDragView);
 				mDragView = null;
 			}
 
+			if (mLatencyListener != null && mLatencyHistogram.getCount() > 0) {
+				mLatencyListener.onDragLatencyMeasured(this, mLatencyHistogram);
+			}
+
+			// 드롭되지 않았으면 밀려난 셀들을 원래 자리로 돌린다.
+			resetLiveReorder(true);
+
+			mDropTargetIndex.clear();
+
+			// 재사용하는 이벤트가 끝난 드래그의 DragSource와 DragView를 붙잡고 있지 않도록 한다.
+			mDragEvent.clear();
+
+			stopAutoScroll();
+
+			if (moveCoalescer != null) {
+				moveCoalescer.cancel();
+			}
+
 			// todo
 			// DragSource?
 		}
 	}
 
+	/**
+	 * 드래그 이미지를 아이템이 놓일 셀의 자리로 보내면서 뗀다. 그 셀이 만들어져 있지 않으면 바로 뗀다.
+	 */
+	private void settleDragView(DragView dragView) {
+		int position = mSettlePosition >= 0 ? mSettlePosition : mDragPosition;
+		mSettlePosition = -1;
+
+		DropTarget target = position >= 0 ? mDropTargets.get(position) : null;
+		if (!(target instanceof View) || ((View)target).getWindowToken() == null) {
+			dragView.remove();
+			return;
+		}
+
+		View view = (View)target;
+		int[] loc = mCoordinatesTemp;
+		view.getLocationOnScreen(loc);
+
+		// live reorder로 밀려난 셀은 곧 원래 자리로 돌아가므로 그 자리로 보낸다.
+		float translation = 0f;
+		for (View v = view; v != null && v != adapterView; v = v.getParent() instanceof View ? (View)v.getParent() : null) {
+			translation += v.getTranslationX();
+		}
+
+		dragView.settleAndRemove(loc[0] - Math.round(translation), loc[1]);
+	}
+
 	/**
 	 * Call this from a drag source view.
 	 */
@@ -379,6 +670,7 @@ public class HDragController {
 				mMotionDownX = screenX;
 				mMotionDownY = screenY;
 				mLastDropTarget = null;
+				mLastDropTargetPosition = -1;
 				break;
 
 			case MotionEvent.ACTION_CANCEL:
@@ -426,24 +718,21 @@ public class HDragController {
 				break;
 
 			case MotionEvent.ACTION_MOVE:
-				// Update the drag view.  Don't use the clamped pos here so the dragging looks
-				// like it goes off screen a little, intead of bumping up against the edge.
-				mDragView.move((int)ev.getRawX(), (int)ev.getRawY());
-
-				// Drop on someone?
-				final int[] coordinates = mCoordinatesTemp;
-				DropTarget dropTarget = findDropTarget(screenX, screenY, coordinates);
-				fireEvent(coordinates, dropTarget);
-				mLastDropTarget = dropTarget;
-
-				if (isAutoScrollable) {
-					autoScroll(ev);
+				if (isMoveCoalescingEnabled) {
+					// 프레임마다 한 번, 마지막 위치로 onMove()가 불린다.
+					moveCoalescer.add(ev);
+				} else {
+					onMove((int)ev.getRawX(), (int)ev.getRawY(), (int)ev.getX(), (int)ev.getY(), ev.getEventTime());
 				}
 				break;
 
 			case MotionEvent.ACTION_UP:
 				Log.d(TAG, "onTouchEvent() ACTION_UP");
 
+				if (moveCoalescer != null) {
+					moveCoalescer.cancel();
+				}
+
 				if (mDragging) {
 					drop(screenX, screenY);
 				}
@@ -455,6 +744,10 @@ public class HDragController {
 			case MotionEvent.ACTION_CANCEL:
 				Log.d(TAG, "onTouchEvent() ACTION_CANCEL");
 
+				if (moveCoalescer != null) {
+					moveCoalescer.cancel();
+				}
+
 				cancelDrag();
 
 				stopAutoScroll();
@@ -464,56 +757,342 @@ public class HDragController {
 		return true;
 	}
 
+	/**
+	 * 드래그 중 포인터가 움직였을 때의 처리. DragView 이동, DropTarget 이벤트, 자동 스크롤을 순서대로 한다.
+	 *
+	 * @param rawX 화면 기준 x 좌표
+	 * @param rawY 화면 기준 y 좌표
+	 * @param x DragLayer 기준 x 좌표
+	 * @param y DragLayer 기준 y 좌표
+	 * @param eventTime MOVE 이벤트의 시간 (MotionEvent.getEventTime())
+	 */
+	private void onMove(int rawX, int rawY, int x, int y, long eventTime) {
+		// Update the drag view.  Don't use the clamped pos here so the dragging looks
+		// like it goes off screen a little, intead of bumping up against the edge.
+		mDragView.move(rawX, rawY);
+		mPendingMoveEventTime = eventTime;
+
+		// Drop on someone?
+		final int screenX = clamp(rawX, 0, mDisplayMetrics.widthPixels);
+		final int screenY = clamp(rawY, 0, mDisplayMetrics.heightPixels);
+		updateDropTarget(screenX, screenY);
+
+		if (isAutoScrollable) {
+			autoScroll(x, y);
+		}
+	}
+
+	/**
+	 * 화면 좌표 (screenX, screenY)의 DropTarget을 찾아서 enter/over/exit 이벤트를 보낸다.
+	 */
+	private void updateDropTarget(int screenX, int screenY) {
+		mLastScreenX = screenX;
+		mLastScreenY = screenY;
+
+		final int[] coordinates = mCoordinatesTemp;
+		DropTarget dropTarget = findDropTarget(screenX, screenY, coordinates);
+		int dropTargetPosition = mFoundTargetPosition;
+		mTrace.record(DragTraceRecorder.TYPE_MOVE, screenX, screenY, dropTargetPosition, 0f);
+		fireEvent(coordinates, dropTarget, dropTargetPosition);
+		mLastDropTarget = dropTarget;
+		mLastDropTargetPosition = dropTargetPosition;
+
+		if (mDragView != null) {
+			mDragView.setHovering(dropTarget != null);
+		}
+
+		// 셀 사이의 빈 곳에서는 이전 모양을 유지한다.
+		if (dropTargetPosition >= 0) {
+			updateLiveReorder(dropTargetPosition);
+		}
+	}
+
+	/**
+	 * 드롭하면 옮겨질 자리에 빈칸이 생기도록, 드래그된 아이템들과 targetPosition 사이의 셀들을 translationX로 밀어낸다.
+	 * LayoutParams나 실제 순서는 바꾸지 않는다.
+	 */
+	private void updateLiveReorder(int targetPosition) {
+		if (!isLiveReorderEnabled || !mDragging || mDragPositionCount <= 0) {
+			return;
+		}
+
+		// 드래그된 아이템 위에서는 드롭해도 순서가 바뀌지 않으므로 원래 자리로 돌아간다.
+		if (isDraggedPosition(targetPosition)) {
+			targetPosition = -1;
+		}
+
+		if (targetPosition == mReflowTargetPosition) {
+			return;
+		}
+		mReflowTargetPosition = targetPosition;
+
+		for (int i = 0; i < mDropTargets.size(); i++) {
+			DropTarget target = mDropTargets.targetAt(i);
+			if (target instanceof View) {
+				translateForReorder((View)target, mDropTargets.positionAt(i), true);
+			}
+		}
+	}
+
+	/**
+	 * 지금의 빈칸 위치에서 position의 셀이 있어야 할 곳으로 셀을 감싸는 뷰(getCellContainer())를 옮긴다.
+	 */
+	private void translateForReorder(View cell, int position, boolean animate) {
+		View container = getCellContainer(cell);
+		if (container == null) {
+			return;
+		}
+
+		float dx = (getReorderedIndex(position) - position) * mReflowStride;
+		if (container.getTranslationX() == dx) {
+			return;
+		}
+
+		if (animate) {
+			container.animate().translationX(dx).setDuration(REFLOW_ANIMATION_DURATION);
+		} else {
+			container.animate().cancel();
+			container.setTranslationX(dx);
+		}
+	}
+
+	/**
+	 * @return 스트립에 붙어 있는, cell을 감싸는 뷰. single-pass 모드의 ImageCell은 감싸는 뷰가 없으므로 셀 자신이다.
+	 */
+	private static View getCellContainer(View cell) {
+		if (cell instanceof ImageCell) {
+			return ((ImageCell)cell).getCellView();
+		}
+
+		return (View)cell.getParent();
+	}
+
+	/**
+	 * @return 지금의 빈칸 위치로 드롭했을 때 position의 아이템이 가게 될 position
+	 */
+	private int getReorderedIndex(int position) {
+		if (mReflowTargetPosition < 0) {
+			return position;
+		}
+
+		final int count = mDragPositionCount;
+		final int blockStart = BatchReorder.getBlockStart(adapterView.getItemCount(), count, mReflowTargetPosition);
+
+		// position보다 앞에 있는 드래그된 아이템 수
+		int draggedBefore = Arrays.binarySearch(mDragPositions, 0, count, position);
+		if (draggedBefore >= 0) {
+			return blockStart + draggedBefore;
+		}
+		draggedBefore = -draggedBefore - 1;
+
+		int rank = position - draggedBefore;
+		return rank < blockStart ? rank : rank + count;
+	}
+
+	/**
+	 * 밀어낸 셀들을 원래 자리로 돌린다.
+	 *
+	 * @param animate false면 바로 돌린다. 드롭해서 실제 순서가 바뀌는 경우에 쓴다.
+	 */
+	private void resetLiveReorder(boolean animate) {
+		if (mReflowTargetPosition < 0) {
+			return;
+		}
+		mReflowTargetPosition = -1;
+
+		for (int i = 0; i < mDropTargets.size(); i++) {
+			DropTarget target = mDropTargets.targetAt(i);
+			if (target instanceof View) {
+				translateForReorder((View)target, mDropTargets.positionAt(i), animate);
+			}
+		}
+	}
+
+	/**
+	 * 셀을 position에 바인딩할 때 부른다. 드래그 중에 새로 보이게 되거나 재활용된 셀도 빈칸에 맞는 자리에 놓이고,
+	 * 드래그 중이 아니면 원래 자리에 놓인다.
+	 */
+	public void bindLiveReorderTranslation(View cell, int position) {
+		translateForReorder(cell, position, false);
+	}
+
+	/**
+	 * @param enabled true면 드래그하는 동안 주변 셀들이 밀려나서 드롭될 자리를 미리 보여준다.
+	 */
+	public void setLiveReorderEnabled(boolean enabled) {
+		this.isLiveReorderEnabled = enabled;
+	}
+
+	public boolean isLiveReorderEnabled() {
+		return isLiveReorderEnabled;
+	}
+
 	DropTarget enteredCell;
 
 	/**
 	 * @param coordinates
 	 * @param dropTarget
+	 * @param dropTargetPosition dropTarget의 position
 	 */
-	private void fireEvent(final int[] coordinates, DropTarget dropTarget) {
+	private void fireEvent(final int[] coordinates, DropTarget dropTarget, int dropTargetPosition) {
 		if (dropTarget != null) {
 			if (mLastDropTarget == dropTarget) {
-				dropTarget.onDragOver(mDragSource, coordinates[0], coordinates[1],
-					(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+				dispatchDragOver(dropTarget, dropTargetPosition, coordinates);
 			} else {
 				if (mLastDropTarget != null) {
-					mLastDropTarget.onDragExit(mDragSource, coordinates[0], coordinates[1],
-						(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+					dispatchDragExit(mLastDropTarget, mLastDropTargetPosition, coordinates);
 				}
-				dropTarget.onDragEnter(mDragSource, coordinates[0], coordinates[1],
-					(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+				dispatchDragEnter(dropTarget, dropTargetPosition, coordinates);
 
 				enteredCell = dropTarget;
 			}
 		} else {
 			if (mLastDropTarget != null) {
-				mLastDropTarget.onDragExit(mDragSource, coordinates[0], coordinates[1],
-					(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+				dispatchDragExit(mLastDropTarget, mLastDropTargetPosition, coordinates);
 			}
 		}
 	}
 
+	/**
+	 * 재사용하는 DragEvent에 현재 드래그 상태를 채운다.
+	 */
+	private DragEvent fillDragEvent(int targetPosition, int[] coordinates) {
+		final DragEvent event = mDragEvent;
+		event.set(mDragSource, mDragPosition, targetPosition, coordinates[0], coordinates[1],
+			(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView);
+		return event;
+	}
+
+	// 아래 dispatch 메소드들은 DragEventTarget이면 DragEvent로, 아니면 기존 DropTarget 메소드로 이벤트를 전달한다.
+
+	private void dispatchDragEnter(DropTarget target, int targetPosition, int[] coordinates) {
+		if (target instanceof DragEventTarget) {
+			((DragEventTarget)target).onDragEnter(fillDragEvent(targetPosition, coordinates));
+		} else {
+			target.onDragEnter(mDragSource, coordinates[0], coordinates[1],
+				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+		}
+	}
+
+	private void dispatchDragOver(DropTarget target, int targetPosition, int[] coordinates) {
+		if (target instanceof DragEventTarget) {
+			((DragEventTarget)target).onDragOver(fillDragEvent(targetPosition, coordinates));
+		} else {
+			target.onDragOver(mDragSource, coordinates[0], coordinates[1],
+				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+		}
+	}
+
+	private void dispatchDragExit(DropTarget target, int targetPosition, int[] coordinates) {
+		if (target instanceof DragEventTarget) {
+			((DragEventTarget)target).onDragExit(fillDragEvent(targetPosition, coordinates));
+		} else {
+			target.onDragExit(mDragSource, coordinates[0], coordinates[1],
+				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+		}
+	}
+
+	private boolean dispatchAcceptDrop(DropTarget target, int targetPosition, int[] coordinates) {
+		if (target instanceof DragEventTarget) {
+			return ((DragEventTarget)target).acceptDrop(fillDragEvent(targetPosition, coordinates));
+		} else {
+			return target.acceptDrop(mDragSource, coordinates[0], coordinates[1],
+				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+		}
+	}
+
+	private void dispatchDrop(DropTarget target, int targetPosition, int[] coordinates) {
+		if (target instanceof DragEventTarget) {
+			((DragEventTarget)target).onDrop(fillDragEvent(targetPosition, coordinates));
+		} else {
+			target.onDrop(mDragSource, coordinates[0], coordinates[1],
+				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+		}
+	}
+
 	private void stopAutoScroll() {
 		if (isAutoScrollable && autoScrollingType == AutoScrollingType.BY_TIMER) {
 			shouldRun = false;
 		}
-	}
 
-	private void autoScroll(MotionEvent ev) {
-		int x = (int)ev.getX();
-		int y = (int)ev.getY();
+		if (frameAutoScroller != null) {
+			frameAutoScroller.stop();
+		}
+
+		adapterView.setAutoScrolling(false, 0f);
+	}
 
+	private void autoScroll(int x, int y) {
 		scrollSpeed = 0;
 
 		adjustScrollBounds(x/*y*/);
 
-		calulateScrollSpeed(x/*y*/);
+		if (autoScrollingType == AutoScrollingType.BY_FRAME) {
+			autoScrollByFrame(x/*y*/);
+		} else {
+			calulateScrollSpeed(x/*y*/);
 
-		if (autoScrollingType == AutoScrollingType.BY_TOUCH_MOVE) {
-			autoScrollByTouch();
-		} else if (autoScrollingType == AutoScrollingType.BY_TIMER) {
-			autoScrollByTimer();
+			if (autoScrollingType == AutoScrollingType.BY_TOUCH_MOVE) {
+				autoScrollByTouch();
+			} else if (autoScrollingType == AutoScrollingType.BY_TIMER) {
+				autoScrollByTimer();
+			}
+		}
+
+		notifyAutoScrollState();
+	}
+
+	/**
+	 * 자동 스크롤이 시작되거나 멈췄음을 스크롤 뷰에 알린다. 스크롤 뷰의 스크롤 상태 리스너가 이를 AUTO_SCROLL로 받는다.
+	 */
+	private void notifyAutoScrollState() {
+		float velocity;
+		switch (autoScrollingType) {
+			case BY_FRAME:
+				velocity = frameAutoScroller != null ? frameAutoScroller.getVelocity() : 0f;
+				break;
+			case BY_TIMER:
+				velocity = scrollSpeed * 1000f / timerInterval;
+				break;
+			default:
+				// 터치 이벤트마다 scrollSpeed만큼 움직이므로 시간 기준의 속도는 스크롤 뷰가 잰 값을 쓴다.
+				velocity = scrollSpeed != 0 ? adapterView.getScrollVelocity() : 0f;
+				break;
+		}
+
+		adapterView.setAutoScrolling(scrollSpeed != 0 || velocity != 0f, velocity);
+	}
+
+	/**
+	 * calulateScrollSpeed()와 같은 경계를 사용하지만, 단계별 속도 대신 경계 영역 안에서의 위치를 -1 ~ 1 사이의 비율로 돌려준다.
+	 */
+	private float calculateEdgeRatio(int x) {
+		if (x > mLeftBound) {
+			int zone = mWidth - mLeftBound;
+			return zone > 0 ? (float)(x - mLeftBound) / zone : 0f;
+		} else if (x < mRightBound) {
+			return mRightBound > 0 ? -(float)(mRightBound - x) / mRightBound : 0f;
 		}
+
+		return 0f;
+	}
+
+	private void autoScrollByFrame(int x) {
+		if (frameAutoScroller == null) {
+			frameAutoScroller = new FrameAutoScroller(adapterView, new FrameAutoScroller.Callback() {
+				@Override
+				public void onAutoScrolled(int dx) {
+					// 손가락은 그대로인데 컨텐츠가 움직였으므로 DropTarget을 다시 찾는다.
+					if (mDragging) {
+						updateDropTarget(mLastScreenX, mLastScreenY);
+					}
+				}
+			});
+		}
+
+		frameAutoScroller.setEdgeRatio(calculateEdgeRatio(x));
+
+		mTrace.record(DragTraceRecorder.TYPE_SCROLL_SPEED, x, 0, -1, frameAutoScroller.getVelocity());
 	}
 
 	private void calulateScrollSpeed(int x) {
@@ -543,7 +1122,7 @@ public class HDragController {
 			}
 		}
 
-		Log.d(TAG, "calulateScrollSpeed(" + x + ") : " + scrollSpeed);
+		mTrace.record(DragTraceRecorder.TYPE_SCROLL_SPEED, x, 0, -1, scrollSpeed);
 	}
 
 	private void autoScrollByTouch() {
@@ -554,11 +1133,11 @@ public class HDragController {
 
 	private void autoScrollByTimer() {
 		if (scrollSpeed != 0) {
-			if (!shouldRun) {
-				shouldRun = true;
-				if (timer == null) {
-					timer = new Thread(new Timer());
-					timer.start();
+			shouldRun = true;
+			if (timer.get() == null) {
+				Thread thread = new Thread(new Timer());
+				if (timer.compareAndSet(null, thread)) {
+					thread.start();
 				}
 			}
 		} else {
@@ -575,13 +1154,24 @@ public class HDragController {
 	private class Timer implements Runnable {
 		@Override
 		public void run() {
+			final Thread self = Thread.currentThread();
 			try {
-				while (shouldRun) {
-					handler.sendMessage(handler.obtainMessage());
+				do {
+					while (shouldRun) {
+						handler.sendMessage(handler.obtainMessage());
 
-					Thread.sleep(timerInterval);
-				}
+						Thread.sleep(timerInterval);
+					}
+
+					timer.compareAndSet(self, null);
+
+					// timer를 비우기 전에 UI 스레드가 shouldRun을 다시 켰다면, 이 스레드가 돌고 있는 것으로 보고
+					// 새 타이머를 시작하지 않았다. 그 경우에는 이 스레드가 계속 돈다.
+				} while (shouldRun && timer.compareAndSet(null, self));
 			} catch (Exception e) {
+			} finally {
+				// 다음 드래그에서 다시 타이머를 시작할 수 있도록 한다. 그 사이에 시작된 다른 타이머는 비우지 않는다.
+				timer.compareAndSet(self, null);
 			}
 		}
 	}
@@ -605,6 +1195,9 @@ public class HDragController {
 
 		final int[] coordinates = mCoordinatesTemp;
 		DropTarget dropTarget = findDropTarget((int)x, (int)y, coordinates);
+		int dropTargetPosition = mFoundTargetPosition;
+
+		mTrace.record(DragTraceRecorder.TYPE_DROP, (int)x, (int)y, dropTargetPosition, 0f);
 
 		if (dropTarget != null) {
 			/* 갤럭시S2와 같이 화면 바깥으로 드래그하면 자동으로 UP 이벤트가 발생되어 버리는 폰 같은 경우,
@@ -619,12 +1212,27 @@ public class HDragController {
 				((ImageCell)enteredCell).changeToInitialShape();
 			}
 
-			dropTarget.onDragExit(mDragSource, coordinates[0], coordinates[1],
-				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
-			if (dropTarget.acceptDrop(mDragSource, coordinates[0], coordinates[1],
-				(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo)) {
-				dropTarget.onDrop(mDragSource, coordinates[0], coordinates[1],
-					(int)mTouchOffsetX, (int)mTouchOffsetY, mDragView, mDragInfo);
+			dispatchDragExit(dropTarget, dropTargetPosition, coordinates);
+			if (dispatchAcceptDrop(dropTarget, dropTargetPosition, coordinates)) {
+				dispatchDrop(dropTarget, dropTargetPosition, coordinates);
+
+				// 옮겨지는 아이템이 여러 개여도 한 번에 순서를 바꾸도록 한 번만 알린다.
+				if (mItemsMovedListener != null && mDragPositionCount > 0 && dropTargetPosition >= 0
+					&& !isDraggedPosition(dropTargetPosition)) {
+					int index = Arrays.binarySearch(mDragPositions, 0, mDragPositionCount, mDragPosition);
+					mSettlePosition = BatchReorder.getBlockStart(adapterView.getItemCount(), mDragPositionCount, dropTargetPosition)
+						+ Math.max(0, index);
+
+					// 셀들은 밀려난 자리에 이미 그려져 있으므로, 실제 순서로 다시 바인딩하면서 같은 프레임에 원래 자리로 돌린다.
+					resetLiveReorder(false);
+
+					mItemsMovedListener.onItemsMoved(mDragPositions, mDragPositionCount, dropTargetPosition);
+				}
+
+				if (mDragPositionCount > 1) {
+					clearSelection();
+				}
+
 				mDragSource.onDropCompleted((View)dropTarget, true);
 				return true;
 			} else {
@@ -641,27 +1249,25 @@ public class HDragController {
 		return false;
 	}
 
+	/**
+	 * 화면 좌표 (x, y)에 있는 DropTarget을 찾는다.
+	 * 드래그 시작 시 만든 인덱스에서 현재 scrollX를 반영해 이진 탐색하므로 뷰 계층을 건드리지 않는다.
+	 * 드래그 중에 DropTarget이 추가/삭제된 경우에만 인덱스를 다시 만든다.
+	 * 찾은 DropTarget의 position은 mFoundTargetPosition에 저장된다.
+	 */
 	private DropTarget findDropTarget(int x, int y, int[] dropCoordinates) {
-		final Rect r = mRectTemp;
-		final Map<Integer, DropTarget> dropTargets = mDropTargets;
-		Set<Integer> set = dropTargets.keySet();
-		Iterator<Integer> iterator = set.iterator();
-
-		while (iterator.hasNext()) {
-			final DropTarget target = dropTargets.get(iterator.next());
-			target.getHitRect(r);
-			target.getLocationOnScreen(dropCoordinates);
-			r.offset(dropCoordinates[0] - target.getLeft(), dropCoordinates[1] - target.getTop());
-
-			if (r.contains(x, y)) {
-				dropCoordinates[0] = x - dropCoordinates[0];
-				dropCoordinates[1] = y - dropCoordinates[1];
-
-				return target;
-			}
+		if (mDropTargetIndex.isDirty(mDropTargets)) {
+			mDropTargetIndex.rebuild(mDropTargets);
 		}
 
-		return null;
+		int slot = mDropTargetIndex.find(x, y, dropCoordinates);
+		if (slot < 0) {
+			mFoundTargetPosition = -1;
+			return null;
+		}
+
+		mFoundTargetPosition = mDropTargetIndex.positionAt(slot);
+		return mDropTargetIndex.targetAt(slot);
 	}
 
 	/**
@@ -690,6 +1296,13 @@ public class HDragController {
 		mWindowToken = token;
 	}
 
+	/**
+	 * DragViewRenderingType.LAYER 방식에서 DragView를 그릴 DragLayer를 설정한다.
+	 */
+	public void setDragLayer(DragLayer dragLayer) {
+		mDragLayer = dragLayer;
+	}
+
 	public void setDragListener(DragListener l) {
 		mListener = l;
 	}
@@ -698,16 +1311,120 @@ public class HDragController {
 		mListener = null;
 	}
 
+	/**
+	 * 드래그가 끝날 때마다 터치-화면 지연 시간 분포를 받을 리스너를 설정한다.
+	 * 리스너가 있을 때만 지연 시간을 측정하며, 드래그 시작 전에 설정해야 그 드래그부터 측정된다.
+	 */
+	public void setDragLatencyListener(DragLatencyListener l) {
+		mLatencyListener = l;
+	}
+
+	/**
+	 * position에 DropTarget을 등록한다.
+	 * DropTarget이 뷰라면 윈도우에 붙어 있는 동안에만 등록되어 있고, 떨어지면 자동으로 해제된다.
+	 * 재활용된 뷰를 다른 position으로 다시 등록하면 이전 position의 등록은 해제된다.
+	 */
 	public void addDropTarget(int position, DropTarget target) {
-		mDropTargets.put(position, target);
+		mDropTargets.register(position, target);
 	}
 
-	public void removeDropTarget(Integer position) {
-		mDropTargets.remove(position);
+	public void removeDropTarget(int position) {
+		mDropTargets.unregister(position);
 	}
 
 	public void removeAllDropTargets() {
-		mDropTargets = new HashMap<Integer, DropTarget>();
+		mDropTargets.clear();
+	}
+
+	/**
+	 * @return 지금 등록되어 있는 DropTarget 수. 화면에 붙어 있는 셀의 수에 비례한다.
+	 */
+	public int getDropTargetCount() {
+		return mDropTargets.size();
+	}
+
+	/**
+	 * @return position의 아이템이 지금 드래그되고 있으면 true. 재활용된 뷰를 바인딩할 때 숨길지 판단하는 데 사용한다.
+	 */
+	public boolean isDraggedPosition(int position) {
+		if (!mDragging) {
+			return false;
+		}
+
+		return Arrays.binarySearch(mDragPositions, 0, mDragPositionCount, position) >= 0;
+	}
+
+	/**
+	 * @return 이번 드래그로 옮겨지는 아이템 수
+	 */
+	public int getDraggedCount() {
+		return mDragging ? mDragPositionCount : 0;
+	}
+
+	public boolean isMultiSelectMode() {
+		return isMultiSelectMode;
+	}
+
+	/**
+	 * 다중 선택 모드를 설정한다. 다중 선택 모드에서 선택된 아이템을 드래그하면 선택된 아이템이 모두 함께 옮겨진다.
+	 * 모드를 끄면 선택은 모두 해제된다.
+	 */
+	public void setMultiSelectMode(boolean isMultiSelectMode) {
+		this.isMultiSelectMode = isMultiSelectMode;
+
+		if (!isMultiSelectMode) {
+			clearSelection();
+		}
+	}
+
+	/**
+	 * position의 선택 상태를 뒤집는다.
+	 *
+	 * @return 바뀐 후의 선택 상태
+	 */
+	public boolean toggleSelection(int position) {
+		boolean selected = !mSelectedPositions.get(position);
+		if (selected) {
+			mSelectedPositions.put(position, true);
+		} else {
+			mSelectedPositions.delete(position);
+		}
+
+		setDropTargetSelected(position, selected);
+		return selected;
+	}
+
+	public boolean isSelected(int position) {
+		return mSelectedPositions.get(position);
+	}
+
+	public int getSelectedCount() {
+		return mSelectedPositions.size();
+	}
+
+	public void clearSelection() {
+		for (int i = 0; i < mSelectedPositions.size(); i++) {
+			setDropTargetSelected(mSelectedPositions.keyAt(i), false);
+		}
+		mSelectedPositions.clear();
+	}
+
+	private void setDropTargetSelected(int position, boolean selected) {
+		DropTarget target = mDropTargets.get(position);
+		if (target instanceof View) {
+			((View)target).setSelected(selected);
+		}
+	}
+
+	public void setOnItemsMovedListener(OnItemsMovedListener l) {
+		mItemsMovedListener = l;
+	}
+
+	/**
+	 * @return 드래그를 시작한 position. 드래그 중이 아니거나 position으로 시작하지 않았다면 -1
+	 */
+	public int getDragPosition() {
+		return mDragging ? mDragPosition : -1;
 	}
 
 	public AutoScrollingType getAutoScrollingType() {
@@ -718,6 +1435,81 @@ public class HDragController {
 		this.autoScrollingType = autoScrollingType;
 	}
 
+	public DragViewRenderingType getDragViewRenderingType() {
+		return dragViewRenderingType;
+	}
+
+	/**
+	 * DragView를 어떻게 그릴지 설정한다. LAYER로 설정했는데 DragLayer가 없으면 WINDOW 방식으로 동작한다.
+	 *
+	 * @param dragViewRenderingType
+	 */
+	public void setDragViewRenderingType(DragViewRenderingType dragViewRenderingType) {
+		this.dragViewRenderingType = dragViewRenderingType;
+	}
+
+	public boolean isMoveCoalescingEnabled() {
+		return isMoveCoalescingEnabled;
+	}
+
+	/**
+	 * MOVE 이벤트를 프레임 단위로 합쳐서 처리할지 설정한다.
+	 * true로 설정하면 한 프레임에 MOVE 이벤트가 여러 번 들어와도 DragView 이동, DropTarget 이벤트, 자동 스크롤은 프레임마다 한 번만 수행된다.
+	 *
+	 * @param isMoveCoalescingEnabled
+	 */
+	public void setMoveCoalescingEnabled(boolean isMoveCoalescingEnabled) {
+		if (isMoveCoalescingEnabled && moveCoalescer == null) {
+			moveCoalescer = new MoveCoalescer(new MoveCoalescer.Callback() {
+				@Override
+				public void onCoalescedMove(int rawX, int rawY, int x, int y, long eventTime) {
+					if (mDragging) {
+						onMove(rawX, rawY, x, y, eventTime);
+					}
+				}
+			});
+		} else if (!isMoveCoalescingEnabled && moveCoalescer != null) {
+			moveCoalescer.cancel();
+		}
+
+		this.isMoveCoalescingEnabled = isMoveCoalescingEnabled;
+	}
+
+	/**
+	 * @return 이번 드래그에서 받은 MOVE 샘플 수 (historical 샘플 포함). 합치기 모드가 아니면 0
+	 */
+	public long getCoalescedSampleCount() {
+		return moveCoalescer != null ? moveCoalescer.getReceivedSamples() : 0;
+	}
+
+	/**
+	 * @return 이번 드래그에서 MOVE 처리가 실제로 수행된 프레임 수. 합치기 모드가 아니면 0
+	 */
+	public long getCoalescedFrameCount() {
+		return moveCoalescer != null ? moveCoalescer.getDispatchedFrames() : 0;
+	}
+
+	/**
+	 * @return 이번 드래그에서 한 프레임에 합쳐진 샘플 수의 최대값. 합치기 모드가 아니면 0
+	 */
+	public int getMaxCoalescedSamplesPerFrame() {
+		return moveCoalescer != null ? moveCoalescer.getMaxFrameSamples() : 0;
+	}
+
+	/**
+	 * @return 이번 드래그에서 한 프레임에 평균적으로 합쳐진 샘플 수. 합치기 모드가 아니면 0
+	 */
+	public float getAverageCoalescedSamplesPerFrame() {
+		return moveCoalescer != null ? moveCoalescer.getAverageFrameSamples() : 0f;
+	}
+
+	/**
+	 * @return 마지막으로 처리된 프레임 동안의 포인터 x 속도 (px/s). historical 샘플까지 써서 구한다. 합치기 모드가 아니면 0
+	 */
+	public float getCoalescedMoveVelocityX() {
+		return moveCoalescer != null ? moveCoalescer.getLastFrameVelocityX() : 0f;
+	}
+
 	public boolean isAutoScrollable() {
 		return isAutoScrollable;
 	}
@@ -8,34 +8,73 @@
 package com.example.testdnd.dnd;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 
 import com.example.testdnd.R;
+import com.example.testdnd.image.ThumbnailLoader;
 
 /**
  * ImageCell은 자신이 어댑터에서 어느 위치에 해당하는지 cellNumber를 통해 알 수 있다.
  * 또한 자신이 비었는지를 empty를 통해 안다.
  *
  * ImageCell은 이미지가 드래그되는 장소이고 드롭되는 장소이기 때문에 DragSource와 DropTarget 인터페이스 모두를 구현한다.
+ *
+ * single-pass 모드에서는 감싸는 레이아웃 없이 스트립에 바로 붙고, 셀 사이의 간격(패딩), placeholder, 이미지, 강조 테두리,
+ * 선택 프레임을 onDraw() 한 번에 그린다. placeholder는 불투명한 이미지에 가려지면 그리지 않고,
+ * 셀 전체를 불투명하게 칠하므로 isOpaque()가 true를 돌려주고, 스트립은 이런 셀들로 덮여 있는 동안 배경을 그리지 않는다.
  * 
  * @author 박성현 
  */
-public class ImageCell extends ImageView implements DragSource, DropTarget {
+public class ImageCell extends ImageView implements DragSource, DragEventTarget {
 	private static final String TAG = "DragAndDrop";
 
 	public int cellNumber = -1;
 	public boolean empty;
 
-	private int originalSize;
-	private int enteringSize;
+	/** 강조되었을 때의 이미지 투명도 */
+	private static final int EMPHASIZED_IMAGE_ALPHA = 127;
+
+	/** 강조 애니메이션 시간 (ms) */
+	private static final long EMPHASIS_ANIMATION_DURATION = 100;
+
+	/** 강조되었을 때의 크기 비율. enteringSize / originalSize */
+	private float emphasizedScale;
+
+	/** 다중 선택 모드에서 선택되었을 때 위에 그리는 프레임 */
+	private Drawable selectionFrame;
+
+	/** 드래그되는 아이템이 올라왔을 때 위에 그리는 테두리 */
+	private Drawable emphasisHighlight;
+
+	private boolean emphasized;
+
+	private boolean emphasisAnimationEnabled = true;
+
+	private boolean singlePassRendering;
+
+	/** single-pass 모드에서 이미지가 없거나 이미지에 투명한 부분이 있을 때 안쪽에 먼저 그리는 drawable */
+	private Drawable placeholder;
+
+	/** single-pass 모드에서 패딩 영역을 칠하는 paint. 셀 사이의 간격이 된다. */
+	private final Paint gutterPaint = new Paint();
+
+	private final Rect contentRect = new Rect();
 
 	private HDragController dragController;
 
+	private ThumbnailLoader thumbnailLoader;
+
 	public ImageCell(Context context) {
 		super(context);
 
@@ -55,8 +94,189 @@ public class ImageCell extends ImageView implements DragSource, DropTarget {
 	}
 
 	private void init() {
-		enteringSize = getResources().getDimensionPixelSize(R.dimen.npa_order_change_photo_entering_size);
-		originalSize = getResources().getDimensionPixelSize(R.dimen.npa_order_change_photo_original_size);
+		int enteringSize = getResources().getDimensionPixelSize(R.dimen.npa_order_change_photo_entering_size);
+		int originalSize = getResources().getDimensionPixelSize(R.dimen.npa_order_change_photo_original_size);
+		emphasizedScale = (float)enteringSize / originalSize;
+
+		selectionFrame = getResources().getDrawable(R.drawable.npa_album_order_frame);
+		emphasisHighlight = getResources().getDrawable(R.drawable.npa_myalbum_photo_order_change_highlight);
+	}
+
+	/**
+	 * @param thumbnailLoader 셀이 재활용되어 화면에서 떨어질 때 썸네일을 돌려주고, 다시 붙을 때 다시 받아올 로더
+	 */
+	public void setThumbnailLoader(ThumbnailLoader thumbnailLoader) {
+		this.thumbnailLoader = thumbnailLoader;
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+
+		if (thumbnailLoader != null) {
+			thumbnailLoader.restore(this);
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+
+		// 드래그 이미지는 드래그를 시작할 때 따로 합성되므로 드래그 중에도 돌려줘도 된다.
+		if (thumbnailLoader != null) {
+			thumbnailLoader.release(this);
+		}
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (singlePassRendering) {
+			contentRect.set(getPaddingLeft(), getPaddingTop(), getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+
+			drawGutter(canvas);
+
+			if (!isImageCovering()) {
+				placeholder.setBounds(contentRect);
+				placeholder.draw(canvas);
+			}
+		}
+
+		super.onDraw(canvas);
+
+		if (emphasized) {
+			emphasisHighlight.setBounds(0, 0, getWidth(), getHeight());
+			emphasisHighlight.draw(canvas);
+		}
+
+		if (isSelected()) {
+			selectionFrame.setBounds(0, 0, getWidth(), getHeight());
+			selectionFrame.draw(canvas);
+		}
+	}
+
+	/**
+	 * single-pass 모드를 켜거나 끈다. 켜면 뷰의 배경을 placeholder로 옮겨서 패딩 안쪽에만, 이미지에 가려지지 않을 때만 그린다.
+	 * 배경이 없으면 npa_empty를 placeholder로 쓴다. 이미지는 패딩 안쪽으로 잘린다.
+	 */
+	public void setSinglePassRendering(boolean enabled) {
+		if (singlePassRendering == enabled) {
+			return;
+		}
+
+		singlePassRendering = enabled;
+
+		if (enabled) {
+			Drawable background = getBackground();
+			if (background != null) {
+				placeholder = background;
+				setBackgroundDrawable(null);
+			} else {
+				placeholder = getResources().getDrawable(R.drawable.npa_empty);
+			}
+			setCropToPadding(true);
+		} else {
+			setBackgroundDrawable(placeholder);
+			placeholder = null;
+		}
+
+		invalidate();
+	}
+
+	public boolean isSinglePassRendering() {
+		return singlePassRendering;
+	}
+
+	/**
+	 * @param color single-pass 모드에서 패딩 영역(셀 사이의 간격)을 칠할 색. 불투명하지 않으면 뒤의 배경이 보인다.
+	 */
+	public void setGutterColor(int color) {
+		gutterPaint.setColor(color);
+		invalidate();
+	}
+
+	/**
+	 * @return 스트립에 붙어서 순서를 바꿀 때 옮겨지는 뷰. single-pass 모드에서는 감싸는 레이아웃이 없으므로 셀 자신이다.
+	 */
+	public View getCellView() {
+		return singlePassRendering ? this : (View)getParent();
+	}
+
+	/**
+	 * single-pass 모드에서는 감싸던 레이아웃이 해 주던 대로, 부모가 크기를 정해 주지 않으면 layout_width/height를 쓴다.
+	 */
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		ViewGroup.LayoutParams params = getLayoutParams();
+		if (singlePassRendering && params != null && params.width > 0 && params.height > 0) {
+			setMeasuredDimension(resolveSize(params.width, widthMeasureSpec), resolveSize(params.height, heightMeasureSpec));
+			return;
+		}
+
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+	}
+
+	/**
+	 * single-pass 모드에서는 패딩을 불투명한 색으로 칠하고, 안쪽은 불투명한 placeholder나 이미지가 모두 칠한다.
+	 */
+	@Override
+	public boolean isOpaque() {
+		if (!singlePassRendering) {
+			return super.isOpaque();
+		}
+
+		boolean hasGutter = getPaddingLeft() > 0 || getPaddingTop() > 0 || getPaddingRight() > 0 || getPaddingBottom() > 0;
+		if (hasGutter && Color.alpha(gutterPaint.getColor()) != 255) {
+			return false;
+		}
+
+		return getAlpha() >= 1f && (isImageCovering() || placeholder.getOpacity() == PixelFormat.OPAQUE);
+	}
+
+	/**
+	 * @return 이미지가 패딩 안쪽을 불투명하게 모두 덮으면 true. 그러면 placeholder를 그리지 않는다.
+	 */
+	private boolean isImageCovering() {
+		Drawable drawable = getDrawable();
+		if (drawable == null || getImageAlpha() != 255 || drawable.getOpacity() != PixelFormat.OPAQUE) {
+			return false;
+		}
+
+		ScaleType scaleType = getScaleType();
+		return scaleType == ScaleType.CENTER_CROP || scaleType == ScaleType.FIT_XY;
+	}
+
+	private void drawGutter(Canvas canvas) {
+		if (Color.alpha(gutterPaint.getColor()) == 0) {
+			return;
+		}
+
+		final int width = getWidth();
+		final int height = getHeight();
+		final Rect content = contentRect;
+
+		if (content.top > 0) {
+			canvas.drawRect(0, 0, width, content.top, gutterPaint);
+		}
+		if (content.bottom < height) {
+			canvas.drawRect(0, content.bottom, width, height, gutterPaint);
+		}
+		if (content.left > 0) {
+			canvas.drawRect(0, content.top, content.left, content.bottom, gutterPaint);
+		}
+		if (content.right < width) {
+			canvas.drawRect(content.right, content.top, width, content.bottom, gutterPaint);
+		}
+	}
+
+	/**
+	 * @param enabled true면 강조 모양으로 바뀔 때 짧게 크기 애니메이션을 한다.
+	 */
+	public void setEmphasisAnimationEnabled(boolean enabled) {
+		this.emphasisAnimationEnabled = enabled;
+	}
+
+	public boolean isEmphasized() {
+		return emphasized;
 	}
 
 	@Override
@@ -64,6 +284,20 @@ public class ImageCell extends ImageView implements DragSource, DropTarget {
 		this.dragController = dragController;
 	}
 
+	@Override
+	public Drawable getDragShadowDrawable(Matrix outMatrix) {
+		Drawable drawable = getDrawable();
+		if (drawable == null) {
+			return null;
+		}
+
+		// ImageView.onDraw()와 같은 변환으로 그려지도록 한다.
+		outMatrix.set(getImageMatrix());
+		outMatrix.postTranslate(getPaddingLeft(), getPaddingTop());
+
+		return drawable;
+	}
+
 	@Override
 	public void onDropCompleted(View target, boolean success) {
 		Log.d(TAG, "onDropCompleted() target cellNumber: " + ((ImageCell)target).cellNumber);
@@ -96,16 +330,14 @@ public class ImageCell extends ImageView implements DragSource, DropTarget {
 			+ (Integer)dragInfo + ", this.cellNumber: "
 			+ this.cellNumber);
 
-		if (cellNumber != (Integer)dragInfo) {
+		if (cellNumber != (Integer)dragInfo && !isLiveReorder()) {
 			changeToEmphasizedShape();
 		}
 	}
 
 	public void onDragOver(DragSource source, int x, int y, int xOffset, int yOffset,
 			DragView dragView, Object dragInfo) {
-		Log.d(TAG, "onDragOver() source cellNumber: " + ((ImageCell)source).cellNumber + ", dragInfo: "
-			+ (Integer)dragInfo + ", this.cellNumber: "
-			+ this.cellNumber);
+		DragTraceRecorder.getInstance().record(DragTraceRecorder.TYPE_OVER, x, y, cellNumber, 0f);
 	}
 
 	public void onDragExit(DragSource source, int x, int y, int xOffset, int yOffset,
@@ -129,11 +361,59 @@ public class ImageCell extends ImageView implements DragSource, DropTarget {
 		return null;
 	}
 
+	/**
+	 * 순서 변경은 HDragController가 드롭된 아이템들을 한 번에 옮기고 OnItemsMovedListener.onItemsMoved()로 알리므로
+	 * 셀에서는 아무것도 하지 않는다.
+	 */
+	@Override
+	public void onDrop(DragEvent event) {
+	}
+
+	@Override
+	public void onDragEnter(DragEvent event) {
+		DragTraceRecorder.getInstance().record(DragTraceRecorder.TYPE_ENTER, event.getX(), event.getY(), cellNumber, 0f);
+
+		// live reorder에서는 셀들이 밀려나는 것으로 드롭될 자리를 보여주므로 강조하지 않는다.
+		if (cellNumber != event.getSourcePosition() && !isLiveReorder()) {
+			changeToEmphasizedShape();
+		}
+	}
+
+	@Override
+	public void onDragOver(DragEvent event) {
+		// MOVE 이벤트마다 불리므로 기록만 한다.
+		DragTraceRecorder.getInstance().record(DragTraceRecorder.TYPE_OVER, event.getX(), event.getY(), cellNumber, 0f);
+	}
+
+	@Override
+	public void onDragExit(DragEvent event) {
+		DragTraceRecorder.getInstance().record(DragTraceRecorder.TYPE_EXIT, event.getX(), event.getY(), cellNumber, 0f);
+
+		if (cellNumber != event.getSourcePosition()) {
+			changeToInitialShape();
+		}
+	}
+
+	@Override
+	public boolean acceptDrop(DragEvent event) {
+		return cellNumber >= 0 && !empty;
+	}
+
+	private boolean isLiveReorder() {
+		return dragController != null && dragController.isLiveReorderEnabled();
+	}
+
 	public boolean isEmpty() {
 		return empty;
 	}
 
 	public boolean performClick() {
+		// 다중 선택 모드에서는 클릭으로 선택 상태를 바꾼다.
+		if (!empty && cellNumber >= 0 && dragController != null && dragController.isMultiSelectMode()) {
+			dragController.toggleSelection(cellNumber);
+			return true;
+		}
+
 		if (!empty) {
 			return super.performClick();
 		}
@@ -150,40 +430,38 @@ public class ImageCell extends ImageView implements DragSource, DropTarget {
 	}
 
 	/**
-	 * 아이템을 강조된 모양으로 바꾼다. 드래그되는 source가 이 아이템위로 올라갔을 경우 아래와 같은 모양으로 바뀜.
+	 * 아이템을 강조된 모양으로 바꾼다. 드래그되는 source가 이 아이템위로 올라갔을 경우 작아지고, 반투명해지고, 테두리가 그려진다.
+	 * 크기와 투명도는 그리기 속성만 바꾸므로 measure, layout이 일어나지 않는다.
 	 */
 	public void changeToEmphasizedShape() {
-		LinearLayout parentView = (LinearLayout)getParent();
-
-		// 이 뷰가 아닌 부모 레이아웃의 배경색을 바꾼다.
-		parentView.setBackgroundResource(R.drawable.npa_myalbum_photo_order_change_rectangle);
-
-		LinearLayout.LayoutParams params = (LinearLayout.LayoutParams)getLayoutParams();
-
-		params.width = enteringSize;
-		params.height = enteringSize;
-
-		setAlpha(127);
-
-		setLayoutParams(params);
+		setEmphasized(true);
 	}
 
 	/**
 	 * 아이템을 원래 모양으로 바꾼다.
 	 */
 	public void changeToInitialShape() {
-		LinearLayout parentView = (LinearLayout)getParent();
+		setEmphasized(false);
+	}
 
-		int imgResId = R.drawable.npa_album_thumbnail_frame;
-		parentView.setBackgroundResource(imgResId);
+	private void setEmphasized(boolean emphasized) {
+		if (this.emphasized == emphasized) {
+			return;
+		}
 
-		LinearLayout.LayoutParams params = (LinearLayout.LayoutParams)getLayoutParams();
+		this.emphasized = emphasized;
 
-		params.width = originalSize;
-		params.height = originalSize;
+		float scale = emphasized ? emphasizedScale : 1f;
+		if (emphasisAnimationEnabled && getWindowToken() != null) {
+			animate().scaleX(scale).scaleY(scale).setDuration(EMPHASIS_ANIMATION_DURATION);
+		} else {
+			animate().cancel();
+			setScaleX(scale);
+			setScaleY(scale);
+		}
 
-		setAlpha(255);
+		setImageAlpha(emphasized ? EMPHASIZED_IMAGE_ALPHA : 255);
 
-		setLayoutParams(params);
+		invalidate();
 	}
 }
@@ -0,0 +1,103 @@
+/*
+ * @(#)LatencyHistogram.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import java.util.Arrays;
+
+/**
+ * 1ms 단위의 고정 버킷으로 지연 시간 분포를 모으는 히스토그램.
+ *
+ * 버킷 배열을 미리 할당해 두기 때문에 record()는 객체를 만들지 않는다.
+ * MAX_BUCKET_MILLIS 이상의 값은 마지막 버킷에 모이고, 최대값은 따로 정확하게 기억한다.
+ */
+public final class LatencyHistogram {
+	/** 이 값 이상의 지연 시간은 모두 마지막 버킷에 들어간다. */
+	public static final int MAX_BUCKET_MILLIS = 128;
+
+	private final int[] buckets = new int[MAX_BUCKET_MILLIS + 1];
+	private int count;
+	private long sum;
+	private int max;
+
+	/**
+	 * @param latencyMillis 지연 시간 (ms). 음수는 0으로 취급한다.
+	 */
+	public void record(long latencyMillis) {
+		int value = (int)Math.max(0, Math.min(latencyMillis, Integer.MAX_VALUE));
+
+		buckets[Math.min(value, MAX_BUCKET_MILLIS)]++;
+		count++;
+		sum += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public void reset() {
+		Arrays.fill(buckets, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	public float getMean() {
+		return count > 0 ? (float)sum / count : 0f;
+	}
+
+	/**
+	 * @param percentile 0 ~ 100
+	 * @return 해당 백분위의 지연 시간 (ms). 마지막 버킷에 해당하면 MAX_BUCKET_MILLIS를 돌려준다. 기록이 없으면 0
+	 */
+	public int getPercentile(float percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		// nearest-rank 방식
+		long rank = (long)Math.ceil(percentile / 100f * count);
+		if (rank < 1) {
+			rank = 1;
+		}
+
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return i;
+			}
+		}
+
+		return MAX_BUCKET_MILLIS;
+	}
+
+	public int getP50() {
+		return getPercentile(50f);
+	}
+
+	public int getP90() {
+		return getPercentile(90f);
+	}
+
+	public int getP99() {
+		return getPercentile(99f);
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram{count=" + count + ", p50=" + getP50() + "ms, p90=" + getP90()
+			+ "ms, p99=" + getP99() + "ms, max=" + max + "ms}";
+	}
+}
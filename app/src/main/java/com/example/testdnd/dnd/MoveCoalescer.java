@@ -0,0 +1,173 @@
+/*
+ * @(#)MoveCoalescer.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+/**
+ * 한 프레임 동안 들어온 ACTION_MOVE 이벤트들을 하나로 합치는 클래스.
+ *
+ * 120~240Hz 터치 패널에서는 한 프레임에 MOVE 이벤트가 여러 번 들어오는데, 매번 DragView 이동과 hit test를 하는 대신
+ * 마지막 위치만 기록해 두었다가 Choreographer 프레임마다 한 번만 Callback을 부른다.
+ * MotionEvent에 묶여 들어온 historical 샘플들도 합쳐진 샘플 수에 포함되고, 그 프레임에서 가장 오래된 샘플의 위치와 시간은
+ * 프레임 동안의 포인터 속도를 구하는 데 쓴다. 위치는 가장 최근 샘플(이벤트의 현재 값)을 쓴다.
+ */
+final class MoveCoalescer implements Choreographer.FrameCallback {
+	/**
+	 * 프레임마다 한 번, 그 프레임 동안의 마지막 포인터 위치로 불린다.
+	 */
+	interface Callback {
+		/**
+		 * @param rawX 화면 기준 x 좌표
+		 * @param rawY 화면 기준 y 좌표
+		 * @param x 이벤트를 받은 뷰 기준 x 좌표
+		 * @param y 이벤트를 받은 뷰 기준 y 좌표
+		 * @param eventTime 마지막 이벤트의 시간 (MotionEvent.getEventTime())
+		 */
+		void onCoalescedMove(int rawX, int rawY, int x, int y, long eventTime);
+	}
+
+	private final Callback callback;
+
+	private boolean pending;
+	private int pendingRawX;
+	private int pendingRawY;
+	private int pendingX;
+	private int pendingY;
+	private long pendingEventTime;
+	private int pendingSamples;
+
+	/** 이번 프레임에서 가장 오래된 샘플(historical 포함)의 x 좌표와 시간 */
+	private float firstSampleX;
+	private long firstSampleTime;
+	/** 이번 프레임에서 가장 최근 샘플의 x 좌표 */
+	private float lastSampleX;
+
+	/** 마지막 프레임 동안의 포인터 x 속도 (px/s) */
+	private float lastFrameVelocityX;
+
+	/** 지금까지 받은 원래의 터치 샘플 수 (historical 샘플 포함) */
+	private long receivedSamples;
+
+	/** 실제로 처리된 프레임 수 */
+	private long dispatchedFrames;
+
+	/** 마지막 프레임에 합쳐진 샘플 수 */
+	private int lastFrameSamples;
+
+	/** 한 프레임에 합쳐진 샘플 수의 최대값 */
+	private int maxFrameSamples;
+
+	MoveCoalescer(Callback callback) {
+		this.callback = callback;
+	}
+
+	/**
+	 * MOVE 이벤트를 기록한다. 이번 프레임에 처음 들어온 이벤트라면 frame callback을 등록한다.
+	 */
+	void add(MotionEvent ev) {
+		// historical 샘플들은 이 이벤트보다 이전 위치이다. 위치는 현재 값을 쓰고,
+		// 이번 프레임의 첫 이벤트라면 가장 오래된 historical 샘플을 속도 계산의 시작점으로 기억한다.
+		final int historySize = ev.getHistorySize();
+		int samples = historySize + 1;
+
+		if (pendingSamples == 0) {
+			if (historySize > 0) {
+				firstSampleX = ev.getHistoricalX(0);
+				firstSampleTime = ev.getHistoricalEventTime(0);
+			} else {
+				firstSampleX = ev.getX();
+				firstSampleTime = ev.getEventTime();
+			}
+		}
+		lastSampleX = ev.getX();
+
+		pendingRawX = (int)ev.getRawX();
+		pendingRawY = (int)ev.getRawY();
+		pendingX = (int)ev.getX();
+		pendingY = (int)ev.getY();
+		pendingEventTime = ev.getEventTime();
+		pendingSamples += samples;
+		receivedSamples += samples;
+
+		if (!pending) {
+			pending = true;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+
+	/**
+	 * 아직 처리되지 않은 MOVE 이벤트를 버린다. 드롭이나 취소 시에 부른다.
+	 */
+	void cancel() {
+		if (pending) {
+			pending = false;
+			pendingSamples = 0;
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!pending) {
+			return;
+		}
+
+		pending = false;
+		dispatchedFrames++;
+		lastFrameSamples = pendingSamples;
+		if (pendingSamples > maxFrameSamples) {
+			maxFrameSamples = pendingSamples;
+		}
+		pendingSamples = 0;
+
+		long duration = pendingEventTime - firstSampleTime;
+		lastFrameVelocityX = duration > 0 ? (lastSampleX - firstSampleX) * 1000f / duration : 0f;
+
+		callback.onCoalescedMove(pendingRawX, pendingRawY, pendingX, pendingY, pendingEventTime);
+	}
+
+	long getReceivedSamples() {
+		return receivedSamples;
+	}
+
+	long getDispatchedFrames() {
+		return dispatchedFrames;
+	}
+
+	int getLastFrameSamples() {
+		return lastFrameSamples;
+	}
+
+	/**
+	 * @return 마지막 프레임에 합쳐진 샘플들로 구한 포인터의 x 속도 (px/s). 샘플이 하나뿐이었으면 0
+	 */
+	float getLastFrameVelocityX() {
+		return lastFrameVelocityX;
+	}
+
+	int getMaxFrameSamples() {
+		return maxFrameSamples;
+	}
+
+	/**
+	 * @return 한 프레임에 평균적으로 합쳐진 샘플 수
+	 */
+	float getAverageFrameSamples() {
+		return dispatchedFrames > 0 ? (float)receivedSamples / dispatchedFrames : 0f;
+	}
+
+	void resetCounters() {
+		receivedSamples = 0;
+		dispatchedFrames = 0;
+		lastFrameSamples = 0;
+		maxFrameSamples = 0;
+		lastFrameVelocityX = 0f;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * @(#)TouchArbiter.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.dnd;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewParent;
+
+/**
+ * 한 번의 터치 제스처를 누가 처리할지 정하는 클래스.
+ *
+ * 제스처마다 touch slop을 넘는 순간 한 번만 방향을 보고 가로 스트립(STRIP)인지 바깥쪽 세로 스크롤(PARENT)인지 정하고,
+ * 드래그가 시작되면 DRAG가 된다. 바깥쪽 스크롤 뷰가 가로채지 못하게 하는 것은 이 클래스만 정한다.
+ * 부모 체인을 따라가는 requestDisallowInterceptTouchEvent()는 STRIP이나 DRAG가 될 때 제스처마다 한 번만 부르고,
+ * PARENT로 정해진 제스처에서는 부르지 않는다.
+ * 제스처가 끝나면(ACTION_UP, ACTION_CANCEL) IDLE로 돌아간다.
+ */
+public final class TouchArbiter {
+	public static enum State {
+		IDLE, // 터치하고 있지 않음
+		UNDECIDED, // 터치했지만 아직 touch slop을 넘지 않음
+		STRIP, // 가로로 움직여서 스트립이 스크롤함
+		PARENT, // 세로로 움직여서 바깥쪽 스크롤 뷰에 넘김
+		DRAG // 드래그 & 드롭 중
+	}
+
+	/**
+	 * 상태가 바뀔 때 불린다.
+	 */
+	public static interface OnStateChangeListener {
+		void onTouchArbiterStateChanged(State oldState, State newState);
+	}
+
+	private final View host;
+	private final int touchSlop;
+
+	private State state = State.IDLE;
+	private OnStateChangeListener listener;
+
+	private float downX;
+	private float downY;
+
+	/**
+	 * @param host 터치 이벤트를 모두 받는 뷰. 제스처를 가져올 때 이 뷰의 부모에게 알린다.
+	 */
+	TouchArbiter(View host) {
+		this.host = host;
+		this.touchSlop = ViewConfiguration.get(host.getContext()).getScaledTouchSlop();
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public void setOnStateChangeListener(OnStateChangeListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * host의 dispatchTouchEvent()에서 자식에게 넘기기 전에 부른다.
+	 */
+	void onTouchEvent(MotionEvent ev) {
+		switch (ev.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				downX = ev.getX();
+				downY = ev.getY();
+				setState(State.UNDECIDED);
+				break;
+
+			case MotionEvent.ACTION_MOVE:
+				if (state != State.UNDECIDED) {
+					break;
+				}
+
+				float dx = Math.abs(ev.getX() - downX);
+				float dy = Math.abs(ev.getY() - downY);
+				if (dx > touchSlop || dy > touchSlop) {
+					if (dx >= dy) {
+						setState(State.STRIP);
+						claimGesture();
+					} else {
+						setState(State.PARENT);
+					}
+				}
+				break;
+		}
+	}
+
+	/**
+	 * host의 dispatchTouchEvent()에서 자식에게 넘긴 다음에 부른다. 제스처가 끝났으면 IDLE로 돌아간다.
+	 */
+	void onTouchEventHandled(MotionEvent ev) {
+		final int action = ev.getActionMasked();
+		if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+			setState(State.IDLE);
+		}
+	}
+
+	/**
+	 * 드래그가 시작되면 제스처가 끝날 때까지 DRAG로 고정하고, 바깥쪽 스크롤 뷰가 가로채지 못하게 한다.
+	 */
+	void onDragStarted() {
+		if (state == State.DRAG) {
+			return;
+		}
+
+		// STRIP이었으면 이미 가져왔다.
+		boolean claimed = state == State.STRIP;
+		setState(State.DRAG);
+
+		if (!claimed) {
+			claimGesture();
+		}
+	}
+
+	private void claimGesture() {
+		ViewParent parent = host.getParent();
+		if (parent != null) {
+			parent.requestDisallowInterceptTouchEvent(true);
+		}
+	}
+
+	private void setState(State newState) {
+		if (state == newState) {
+			return;
+		}
+
+		State oldState = state;
+		state = newState;
+
+		if (listener != null) {
+			listener.onTouchArbiterStateChanged(oldState, newState);
+		}
+	}
+}
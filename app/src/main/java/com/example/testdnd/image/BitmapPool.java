@@ -0,0 +1,208 @@
+/*
+ * @(#)BitmapPool.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.image;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+/**
+ * 더 이상 보여지지 않는 비트맵을 모아 두었다가 다음 디코딩의 BitmapFactory.Options.inBitmap으로 다시 쓰게 하는 풀.
+ *
+ * 비트맵은 할당된 바이트 수별 bucket에 들어간다. KitKat부터는 디코딩할 크기보다 크기만 하면 다시 쓸 수 있으므로
+ * 필요한 바이트 수 이상인 bucket 중 가장 작은 것에서 꺼내고, 그 전에는 크기와 Config가 정확히 같은 비트맵만 꺼낸다.
+ * 들고 있는 바이트 수가 maxBytes를 넘으면 가장 큰 비트맵부터 버린다.
+ *
+ * 디코딩 스레드와 UI 스레드에서 같이 쓰이므로 모든 메소드는 동기화되어 있다.
+ */
+public final class BitmapPool {
+	/** 필요한 크기보다 이 배수를 넘게 큰 비트맵은 메모리 낭비가 크므로 꺼내지 않는다. */
+	private static final int MAX_SIZE_MULTIPLE = 2;
+
+	private final int maxBytes;
+
+	/** 할당된 바이트 수 -> 그 크기의 비트맵들 */
+	private final TreeMap<Integer, ArrayList<Bitmap>> buckets = new TreeMap<Integer, ArrayList<Bitmap>>();
+
+	private int retainedBytes;
+	private int hitCount;
+	private int missCount;
+	private int evictionCount;
+
+	public BitmapPool(int maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * width x height, config로 디코딩할 때 inBitmap으로 쓸 수 있는 비트맵을 꺼낸다.
+	 *
+	 * @return 쓸 수 있는 비트맵이 없으면 null. 꺼낸 비트맵은 풀에서 빠진다.
+	 */
+	public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		final int bytes = width * height * getBytesPerPixel(config);
+		Bitmap bitmap = canReuseLargerBitmap() ? takeAtLeast(bytes) : takeExact(bytes, width, height, config);
+
+		if (bitmap == null) {
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		retainedBytes -= getAllocationSize(bitmap);
+		return bitmap;
+	}
+
+	/**
+	 * 더 이상 어디에서도 그려지지 않는 비트맵을 돌려준다. 돌려준 다음에는 그 비트맵을 쓰면 안 된다.
+	 *
+	 * @return 풀에 들어갔으면 true. 다시 쓸 수 없는 비트맵이면 false
+	 */
+	public synchronized boolean put(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+			return false;
+		}
+
+		final int size = getAllocationSize(bitmap);
+		if (size > maxBytes) {
+			return false;
+		}
+
+		ArrayList<Bitmap> bucket = buckets.get(size);
+		if (bucket == null) {
+			bucket = new ArrayList<Bitmap>(4);
+			buckets.put(size, bucket);
+		}
+
+		bucket.add(bitmap);
+		retainedBytes += size;
+
+		trimToSize(maxBytes);
+		return true;
+	}
+
+	/**
+	 * 들고 있는 비트맵을 모두 버린다.
+	 */
+	public synchronized void clear() {
+		trimToSize(0);
+	}
+
+	public synchronized int getRetainedBytes() {
+		return retainedBytes;
+	}
+
+	public int getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized int getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized int getMissCount() {
+		return missCount;
+	}
+
+	public synchronized int getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return get()이 비트맵을 돌려준 비율. 아직 get()이 불리지 않았으면 0
+	 */
+	public synchronized float getHitRate() {
+		int requestCount = hitCount + missCount;
+		return requestCount == 0 ? 0f : (float)hitCount / requestCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "BitmapPool [retained=" + retainedBytes + "/" + maxBytes + ", hit=" + hitCount + ", miss=" + missCount
+			+ ", evicted=" + evictionCount + "]";
+	}
+
+	private Bitmap takeAtLeast(int bytes) {
+		for (Map.Entry<Integer, ArrayList<Bitmap>> entry : buckets.tailMap(bytes).entrySet()) {
+			if (entry.getKey() > bytes * MAX_SIZE_MULTIPLE) {
+				break;
+			}
+
+			return removeLast(entry.getKey(), entry.getValue());
+		}
+
+		return null;
+	}
+
+	private Bitmap takeExact(int bytes, int width, int height, Bitmap.Config config) {
+		ArrayList<Bitmap> bucket = buckets.get(bytes);
+		if (bucket == null) {
+			return null;
+		}
+
+		for (int i = bucket.size() - 1; i >= 0; i--) {
+			Bitmap bitmap = bucket.get(i);
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+				bucket.remove(i);
+				if (bucket.isEmpty()) {
+					buckets.remove(bytes);
+				}
+				return bitmap;
+			}
+		}
+
+		return null;
+	}
+
+	private Bitmap removeLast(int size, ArrayList<Bitmap> bucket) {
+		Bitmap bitmap = bucket.remove(bucket.size() - 1);
+		if (bucket.isEmpty()) {
+			buckets.remove(size);
+		}
+
+		return bitmap;
+	}
+
+	/**
+	 * 가장 큰 비트맵부터 버려서 적은 수의 비트맵으로 빨리 줄인다.
+	 */
+	private void trimToSize(int size) {
+		while (retainedBytes > size && !buckets.isEmpty()) {
+			Map.Entry<Integer, ArrayList<Bitmap>> largest = buckets.lastEntry();
+			removeLast(largest.getKey(), largest.getValue());
+			retainedBytes -= largest.getKey();
+			evictionCount++;
+		}
+	}
+
+	private static boolean canReuseLargerBitmap() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+	}
+
+	private static int getAllocationSize(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+
+		return bitmap.getByteCount();
+	}
+
+	static int getBytesPerPixel(Bitmap.Config config) {
+		if (config == Bitmap.Config.ALPHA_8) {
+			return 1;
+		}
+
+		if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+			return 2;
+		}
+
+		return 4;
+	}
+}
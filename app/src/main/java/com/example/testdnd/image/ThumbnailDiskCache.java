@@ -0,0 +1,718 @@
+/*
+ * @(#)ThumbnailDiskCache.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * 셀 크기로 줄여서 디코딩한 썸네일의 픽셀을 그대로 디스크에 저장해 두는 캐시.
+ * 앨범을 처음 열 때 원본 JPEG을 다시 디코딩하지 않고, 페이지 캐시에서 픽셀을 복사하는 것만으로 썸네일을 만든다.
+ *
+ * 두 개의 파일로 이루어진다.
+ * <ul>
+ * <li>데이터 파일 (thumbnails.&lt;generation&gt;.dat) : [key 길이][key UTF-8][픽셀] 레코드를 뒤에 덧붙이기만 한다.
+ * 읽을 때는 그 레코드의 범위만 MappedByteBuffer로 매핑해서 읽는다.</li>
+ * <li>인덱스 파일 (thumbnails.idx) : 헤더와 SLOT_COUNT개의 고정 크기 슬롯. 슬롯마다 레코드의 위치, 크기, 비트맵 모양과 CRC를 가진다.</li>
+ * </ul>
+ *
+ * 프로세스가 언제 죽어도 깨지지 않도록 레코드를 먼저 쓰고 sync한 다음 슬롯과 헤더의 committed length를 쓴다.
+ * 열 때는 CRC가 맞지 않거나 committed length 밖을 가리키는 슬롯은 버리고, committed length 뒤에 덜 쓰인 데이터는 잘라낸다.
+ *
+ * 살아 있는 레코드가 maxBytes를 넘으면 가장 오래 쓰이지 않은 것부터 지우고, 지워진 레코드 때문에 데이터 파일이
+ * maxBytes의 COMPACT_RATIO배를 넘으면 살아 있는 레코드만 새 generation의 파일로 옮긴다(compaction).
+ * 인덱스는 임시 파일에 쓴 다음 rename으로 바꾸므로 compaction 중에 죽어도 이전 generation이 그대로 남는다.
+ *
+ * 파일은 처음 쓰일 때 연다. 모든 메소드는 동기화되어 있고, 디스크 I/O를 하므로 디코딩 스레드에서 불러야 한다.
+ * close()도 compaction이 끝나기를 기다릴 수 있으므로 UI 스레드에서 부르지 않는다.
+ * I/O 오류가 나거나 close()된 다음에는 더 이상 디스크 캐시를 쓰지 않는다.
+ */
+public final class ThumbnailDiskCache {
+	private static final String TAG = "ThumbnailDiskCache";
+
+	private static final String INDEX_FILE_NAME = "thumbnails.idx";
+	private static final String INDEX_TEMP_FILE_NAME = "thumbnails.idx.tmp";
+	private static final String DATA_FILE_PREFIX = "thumbnails.";
+	private static final String DATA_FILE_SUFFIX = ".dat";
+
+	/** "THMB" */
+	private static final int MAGIC = 0x54484d42;
+	private static final int FORMAT_VERSION = 1;
+
+	/** 인덱스 슬롯 수. 이보다 많은 썸네일은 가장 오래 쓰이지 않은 것을 밀어내고 저장한다. */
+	static final int SLOT_COUNT = 1024;
+
+	/** magic, format, version(8), slot count, generation, committed length(8), crc, 예약 */
+	private static final int HEADER_SIZE = 40;
+
+	/** hash(8), offset(8), length, width, height, config, access, crc */
+	private static final int SLOT_SIZE = 40;
+
+	private static final int INDEX_SIZE = HEADER_SIZE + SLOT_COUNT * SLOT_SIZE;
+
+	/** 데이터 파일이 maxBytes의 이 배수를 넘으면 compaction한다. */
+	private static final int COMPACT_RATIO = 2;
+
+	private final File directory;
+	private final long version;
+	private final long maxBytes;
+
+	private boolean opened;
+	private boolean broken;
+	private boolean closed;
+
+	private RandomAccessFile indexFile;
+	private FileChannel indexChannel;
+	private RandomAccessFile dataFile;
+	private FileChannel dataChannel;
+
+	private int generation;
+
+	/** 데이터 파일 중 인덱스가 가리켜도 되는 길이. 그 뒤는 쓰다가 죽은 데이터일 수 있다. */
+	private long committedLength;
+
+	/** 슬롯이 가리키는 레코드들의 크기 합 */
+	private long liveBytes;
+
+	/** 마지막으로 쓰인 순서. 클수록 최근 */
+	private int accessClock;
+
+	private final long[] slotHashes = new long[SLOT_COUNT];
+	private final long[] slotOffsets = new long[SLOT_COUNT];
+	/** 0이면 빈 슬롯 */
+	private final int[] slotLengths = new int[SLOT_COUNT];
+	private final int[] slotWidths = new int[SLOT_COUNT];
+	private final int[] slotHeights = new int[SLOT_COUNT];
+	private final int[] slotConfigs = new int[SLOT_COUNT];
+	/** get()에서 바뀐 값은 그 슬롯이 다시 쓰이거나 compaction될 때 같이 저장된다. */
+	private final int[] slotAccesses = new int[SLOT_COUNT];
+
+	/** key의 hash -> 슬롯 */
+	private final HashMap<Long, Integer> slotByHash = new HashMap<Long, Integer>();
+
+	private final ByteBuffer slotBuffer = ByteBuffer.allocate(SLOT_SIZE);
+	private final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+	private final CRC32 crc = new CRC32();
+
+	/** 레코드를 쓸 때 재사용하는 버퍼. 가장 큰 레코드만큼 자란다. */
+	private ByteBuffer writeBuffer;
+
+	/**
+	 * @param directory 캐시 파일을 둘 디렉토리
+	 * @param version 저장된 썸네일이 유효한 버전. 다르면 열 때 모두 버린다. 리소스 ID를 key로 쓴다면 앱이 업데이트될 때마다 바뀌어야 한다.
+	 * @param maxBytes 살아 있는 레코드의 최대 바이트 수
+	 */
+	public ThumbnailDiskCache(File directory, long version, long maxBytes) {
+		this.directory = directory;
+		this.version = version;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * key의 썸네일을 읽는다. 디코딩하지 않고 저장된 픽셀을 새 비트맵에 복사한다.
+	 *
+	 * @param pool 복사할 비트맵을 꺼낼 풀. null이면 새로 할당한다.
+	 * @return 없거나 읽을 수 없으면 null
+	 */
+	public synchronized Bitmap get(String key, BitmapPool pool) {
+		if (!ensureOpen()) {
+			return null;
+		}
+
+		Integer slot = slotByHash.get(hash(key));
+		if (slot == null) {
+			return null;
+		}
+
+		try {
+			ByteBuffer record = map(slotOffsets[slot], slotLengths[slot]);
+			if (!readKey(record, key)) {
+				// 64비트 hash가 충돌한 경우
+				return null;
+			}
+
+			Bitmap bitmap = obtainBitmap(slotWidths[slot], slotHeights[slot], Bitmap.Config.values()[slotConfigs[slot]], pool);
+			bitmap.copyPixelsFromBuffer(record);
+
+			slotAccesses[slot] = ++accessClock;
+			return bitmap;
+		} catch (IOException e) {
+			disable(e);
+		} catch (RuntimeException e) {
+			// 레코드가 슬롯과 맞지 않는다. 이 슬롯만 버린다.
+			Log.w(TAG, "broken record: " + key, e);
+			removeSlotQuietly(slot);
+		}
+
+		return null;
+	}
+
+	/**
+	 * key로 썸네일의 픽셀을 저장한다. 이미 있으면 아무것도 하지 않는다.
+	 */
+	public synchronized void put(String key, Bitmap bitmap) {
+		if (!ensureOpen() || bitmap.getConfig() == null) {
+			return;
+		}
+
+		final long hash = hash(key);
+		if (slotByHash.containsKey(hash)) {
+			return;
+		}
+
+		try {
+			byte[] keyBytes = key.getBytes("UTF-8");
+			int length = 4 + keyBytes.length + bitmap.getByteCount();
+			if (length > maxBytes) {
+				return;
+			}
+
+			ByteBuffer record = obtainWriteBuffer(length);
+			record.putInt(keyBytes.length);
+			record.put(keyBytes);
+			bitmap.copyPixelsToBuffer(record);
+			record.flip();
+
+			int slot = obtainFreeSlot();
+
+			// 1. 레코드를 committed length 뒤에 덧붙이고 디스크에 내려보낸다.
+			long offset = committedLength;
+			writeFully(dataChannel, record, offset);
+			dataChannel.force(false);
+
+			// 2. 슬롯을 쓰고, 3. committed length를 늘린다. 2와 3 사이에 죽으면 슬롯은 committed length 밖을 가리키므로 버려진다.
+			slotHashes[slot] = hash;
+			slotOffsets[slot] = offset;
+			slotLengths[slot] = length;
+			slotWidths[slot] = bitmap.getWidth();
+			slotHeights[slot] = bitmap.getHeight();
+			slotConfigs[slot] = bitmap.getConfig().ordinal();
+			slotAccesses[slot] = ++accessClock;
+			writeSlot(slot);
+
+			committedLength += length;
+			writeHeader();
+			indexChannel.force(false);
+
+			slotByHash.put(hash, slot);
+			liveBytes += length;
+
+			trim();
+		} catch (IOException e) {
+			disable(e);
+		}
+	}
+
+	/**
+	 * 파일을 닫는다. 닫힌 다음에는 get()과 put()이 아무것도 하지 않고, 파일을 다시 열지 않는다.
+	 */
+	public synchronized void close() {
+		closed = true;
+		closeFiles();
+		opened = false;
+	}
+
+	/**
+	 * @return 살아 있는 레코드의 크기 합. 아직 열리지 않았으면 0
+	 */
+	public synchronized long getSize() {
+		return liveBytes;
+	}
+
+	/**
+	 * @return 데이터 파일의 길이. 지워졌지만 아직 compaction되지 않은 레코드를 포함한다.
+	 */
+	public synchronized long getFileSize() {
+		return committedLength;
+	}
+
+	private boolean ensureOpen() {
+		if (broken || closed) {
+			return false;
+		}
+
+		if (opened) {
+			return true;
+		}
+
+		try {
+			open();
+			opened = true;
+			return true;
+		} catch (IOException e) {
+			disable(e);
+			return false;
+		}
+	}
+
+	private void disable(IOException e) {
+		Log.e(TAG, "disk cache disabled", e);
+
+		closeFiles();
+		broken = true;
+	}
+
+	private void open() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("can't create " + directory);
+		}
+
+		if (!readIndex()) {
+			// 처음이거나, 버전이 바뀌었거나, 인덱스가 깨졌다. 새 generation으로 비우고 시작한다.
+			clearSlots();
+			generation++;
+			committedLength = 0;
+
+			RandomAccessFile emptyData = new RandomAccessFile(getDataFile(generation), "rw");
+			try {
+				emptyData.setLength(0);
+			} finally {
+				emptyData.close();
+			}
+
+			commitIndex();
+		}
+
+		deleteStaleFiles();
+		openFiles();
+
+		// committed length 뒤는 쓰다가 죽은 레코드다.
+		if (dataFile.length() != committedLength) {
+			dataFile.setLength(committedLength);
+		}
+	}
+
+	/**
+	 * 인덱스 파일을 읽어서 슬롯을 채운다.
+	 *
+	 * @return 인덱스를 쓸 수 있으면 true
+	 */
+	private boolean readIndex() throws IOException {
+		File file = new File(directory, INDEX_FILE_NAME);
+		if (file.length() != INDEX_SIZE) {
+			return false;
+		}
+
+		byte[] bytes = new byte[INDEX_SIZE];
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.readFully(bytes);
+		} finally {
+			in.close();
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		crc.reset();
+		crc.update(bytes, 0, HEADER_SIZE - 8);
+		if (buffer.getInt(HEADER_SIZE - 8) != (int)crc.getValue()) {
+			return false;
+		}
+
+		if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != version
+			|| buffer.getInt() != SLOT_COUNT) {
+			return false;
+		}
+
+		generation = buffer.getInt();
+		committedLength = buffer.getLong();
+
+		if (getDataFile(generation).length() < committedLength) {
+			return false;
+		}
+
+		clearSlots();
+
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			int position = HEADER_SIZE + slot * SLOT_SIZE;
+			buffer.position(position);
+
+			long hash = buffer.getLong();
+			long offset = buffer.getLong();
+			int length = buffer.getInt();
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			int config = buffer.getInt();
+			int access = buffer.getInt();
+			int slotCrc = buffer.getInt();
+
+			if (length <= 0) {
+				continue;
+			}
+
+			crc.reset();
+			crc.update(bytes, position, SLOT_SIZE - 4);
+			if (slotCrc != (int)crc.getValue() || offset < 0 || offset + length > committedLength
+				|| config < 0 || config >= Bitmap.Config.values().length || slotByHash.containsKey(hash)) {
+				continue;
+			}
+
+			slotHashes[slot] = hash;
+			slotOffsets[slot] = offset;
+			slotLengths[slot] = length;
+			slotWidths[slot] = width;
+			slotHeights[slot] = height;
+			slotConfigs[slot] = config;
+			slotAccesses[slot] = access;
+
+			slotByHash.put(hash, slot);
+			liveBytes += length;
+			accessClock = Math.max(accessClock, access);
+		}
+
+		return true;
+	}
+
+	private void clearSlots() {
+		Arrays.fill(slotLengths, 0);
+		slotByHash.clear();
+		liveBytes = 0;
+		accessClock = 0;
+	}
+
+	/**
+	 * 인덱스 전체를 임시 파일에 쓰고 sync한 다음 rename으로 바꾼다.
+	 */
+	private void commitIndex() throws IOException {
+		File temp = new File(directory, INDEX_TEMP_FILE_NAME);
+		RandomAccessFile out = new RandomAccessFile(temp, "rw");
+		try {
+			out.setLength(INDEX_SIZE);
+			FileChannel channel = out.getChannel();
+
+			fillHeader();
+			writeFully(channel, headerBuffer, 0);
+
+			for (int slot = 0; slot < SLOT_COUNT; slot++) {
+				fillSlot(slot);
+				writeFully(channel, slotBuffer, HEADER_SIZE + slot * SLOT_SIZE);
+			}
+
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+
+		if (indexFile != null) {
+			indexFile.close();
+			indexFile = null;
+			indexChannel = null;
+		}
+
+		if (!temp.renameTo(new File(directory, INDEX_FILE_NAME))) {
+			throw new IOException("can't rename " + temp);
+		}
+	}
+
+	/**
+	 * 지금 generation이 아닌 데이터 파일과 남아 있는 임시 인덱스를 지운다.
+	 */
+	private void deleteStaleFiles() {
+		String current = getDataFile(generation).getName();
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			String name = file.getName();
+			boolean staleData = name.startsWith(DATA_FILE_PREFIX) && name.endsWith(DATA_FILE_SUFFIX) && !name.equals(current);
+			if (staleData || name.equals(INDEX_TEMP_FILE_NAME)) {
+				file.delete();
+			}
+		}
+	}
+
+	private void openFiles() throws IOException {
+		if (indexFile == null) {
+			indexFile = new RandomAccessFile(new File(directory, INDEX_FILE_NAME), "rw");
+			indexChannel = indexFile.getChannel();
+		}
+
+		dataFile = new RandomAccessFile(getDataFile(generation), "rw");
+		dataChannel = dataFile.getChannel();
+	}
+
+	private void closeFiles() {
+		closeQuietly(indexFile);
+		closeQuietly(dataFile);
+
+		indexFile = null;
+		indexChannel = null;
+		dataFile = null;
+		dataChannel = null;
+	}
+
+	private static void closeQuietly(RandomAccessFile file) {
+		if (file == null) {
+			return;
+		}
+
+		try {
+			file.close();
+		} catch (IOException e) {
+			// 이미 쓸 수 없는 파일이다.
+		}
+	}
+
+	private File getDataFile(int generation) {
+		return new File(directory, DATA_FILE_PREFIX + generation + DATA_FILE_SUFFIX);
+	}
+
+	/**
+	 * @return offset부터 length만큼의 레코드만 매핑한 버퍼.
+	 * 매핑은 GC될 때에야 풀리므로, 파일 전체를 다시 매핑하지 않아서 put()이 이어져도 주소 공간을 레코드 크기만큼만 쓴다.
+	 */
+	private ByteBuffer map(long offset, int length) throws IOException {
+		return dataChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+	}
+
+	/**
+	 * 레코드 앞의 key를 읽고 key와 같은지 확인한다. 같으면 record는 픽셀의 처음을 가리킨다.
+	 */
+	private static boolean readKey(ByteBuffer record, String key) throws UnsupportedEncodingException {
+		byte[] expected = key.getBytes("UTF-8");
+		if (record.getInt() != expected.length) {
+			return false;
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			if (record.get() != expected[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static Bitmap obtainBitmap(int width, int height, Bitmap.Config config, BitmapPool pool) {
+		Bitmap bitmap = pool != null ? pool.get(width, height, config) : null;
+		if (bitmap == null) {
+			return Bitmap.createBitmap(width, height, config);
+		}
+
+		// KitKat부터는 풀이 더 큰 비트맵을 줄 수 있다.
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+			&& (bitmap.getWidth() != width || bitmap.getHeight() != height || bitmap.getConfig() != config)) {
+			bitmap.reconfigure(width, height, config);
+		}
+
+		return bitmap;
+	}
+
+	private ByteBuffer obtainWriteBuffer(int length) {
+		if (writeBuffer == null || writeBuffer.capacity() < length) {
+			writeBuffer = ByteBuffer.allocate(length);
+		}
+
+		writeBuffer.clear();
+		writeBuffer.limit(length);
+		return writeBuffer;
+	}
+
+	/**
+	 * @return 빈 슬롯. 없으면 가장 오래 쓰이지 않은 슬롯을 비워서 돌려준다.
+	 */
+	private int obtainFreeSlot() throws IOException {
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			if (slotLengths[slot] == 0) {
+				return slot;
+			}
+		}
+
+		int slot = findLeastRecentlyUsedSlot();
+		removeSlot(slot);
+		return slot;
+	}
+
+	private int findLeastRecentlyUsedSlot() {
+		int oldest = -1;
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			if (slotLengths[slot] > 0 && (oldest < 0 || slotAccesses[slot] < slotAccesses[oldest])) {
+				oldest = slot;
+			}
+		}
+
+		return oldest;
+	}
+
+	private void removeSlot(int slot) throws IOException {
+		slotByHash.remove(slotHashes[slot]);
+		liveBytes -= slotLengths[slot];
+		slotLengths[slot] = 0;
+
+		writeSlot(slot);
+	}
+
+	private void removeSlotQuietly(int slot) {
+		try {
+			removeSlot(slot);
+		} catch (IOException e) {
+			disable(e);
+		}
+	}
+
+	/**
+	 * maxBytes를 넘으면 오래 쓰이지 않은 레코드부터 지우고, 데이터 파일이 너무 커졌으면 compaction한다.
+	 */
+	private void trim() throws IOException {
+		while (liveBytes > maxBytes) {
+			removeSlot(findLeastRecentlyUsedSlot());
+		}
+
+		if (committedLength > maxBytes * COMPACT_RATIO) {
+			compact();
+		}
+	}
+
+	/**
+	 * 살아 있는 레코드만 새 generation의 데이터 파일로 옮기고 인덱스를 바꾼다.
+	 * 새 인덱스가 rename되기 전에 죽으면 이전 generation이 그대로 쓰이고, 새 데이터 파일은 다음에 열 때 지워진다.
+	 */
+	private void compact() throws IOException {
+		// 읽는 쪽이 순서대로 읽도록 offset 순서로 옮긴다. SLOT_COUNT는 2^10이므로 하위 10비트에 슬롯을 넣어 정렬한다.
+		long[] order = new long[slotByHash.size()];
+		int count = 0;
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			if (slotLengths[slot] > 0) {
+				order[count++] = (slotOffsets[slot] << 10) | slot;
+			}
+		}
+		Arrays.sort(order, 0, count);
+
+		final int newGeneration = generation + 1;
+		long position = 0;
+
+		RandomAccessFile out = new RandomAccessFile(getDataFile(newGeneration), "rw");
+		try {
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+
+			for (int i = 0; i < count; i++) {
+				int slot = (int)(order[i] & (SLOT_COUNT - 1));
+				transferFully(dataChannel, slotOffsets[slot], slotLengths[slot], channel);
+
+				slotOffsets[slot] = position;
+				position += slotLengths[slot];
+			}
+
+			channel.force(true);
+		} finally {
+			out.close();
+		}
+
+		File oldData = getDataFile(generation);
+		generation = newGeneration;
+		committedLength = position;
+
+		commitIndex();
+
+		closeFiles();
+		oldData.delete();
+		openFiles();
+	}
+
+	private void writeSlot(int slot) throws IOException {
+		fillSlot(slot);
+		writeFully(indexChannel, slotBuffer, HEADER_SIZE + slot * SLOT_SIZE);
+	}
+
+	private void writeHeader() throws IOException {
+		fillHeader();
+		writeFully(indexChannel, headerBuffer, 0);
+	}
+
+	private void fillSlot(int slot) {
+		ByteBuffer buffer = slotBuffer;
+		buffer.clear();
+
+		if (slotLengths[slot] == 0) {
+			while (buffer.hasRemaining()) {
+				buffer.put((byte)0);
+			}
+		} else {
+			buffer.putLong(slotHashes[slot]);
+			buffer.putLong(slotOffsets[slot]);
+			buffer.putInt(slotLengths[slot]);
+			buffer.putInt(slotWidths[slot]);
+			buffer.putInt(slotHeights[slot]);
+			buffer.putInt(slotConfigs[slot]);
+			buffer.putInt(slotAccesses[slot]);
+
+			crc.reset();
+			crc.update(buffer.array(), 0, SLOT_SIZE - 4);
+			buffer.putInt((int)crc.getValue());
+		}
+
+		buffer.flip();
+	}
+
+	private void fillHeader() {
+		ByteBuffer buffer = headerBuffer;
+		buffer.clear();
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(FORMAT_VERSION);
+		buffer.putLong(version);
+		buffer.putInt(SLOT_COUNT);
+		buffer.putInt(generation);
+		buffer.putLong(committedLength);
+
+		crc.reset();
+		crc.update(buffer.array(), 0, HEADER_SIZE - 8);
+		buffer.putInt((int)crc.getValue());
+		buffer.putInt(0);
+
+		buffer.flip();
+	}
+
+	/**
+	 * from의 position부터 count 바이트를 매핑하지 않고 to의 현재 위치에 복사한다.
+	 */
+	private static void transferFully(FileChannel from, long position, long count, FileChannel to) throws IOException {
+		while (count > 0) {
+			long transferred = from.transferTo(position, count, to);
+			if (transferred <= 0) {
+				throw new IOException("can't transfer " + count + " bytes at " + position);
+			}
+
+			position += transferred;
+			count -= transferred;
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * 64비트 FNV-1a
+	 */
+	private static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+}
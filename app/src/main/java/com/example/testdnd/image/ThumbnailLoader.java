@@ -0,0 +1,508 @@
+/*
+ * @(#)ThumbnailLoader.java $version 2026. 10. 18.
+ *
+ * Copyright 2011 NAVER JAPAN. All rights Reserved.
+ * NAVER JAPAN PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+
+package com.example.testdnd.image;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.example.testdnd.R;
+
+/**
+ * 셀에 보여줄 썸네일을 백그라운드 스레드에서 디코딩하고 메모리에 캐시하는 클래스.
+ *
+ * 원본을 셀 크기(targetSize)에 맞는 inSampleSize로 줄여서 디코딩하고, 결과는 바이트 크기로 제한된 LRU 캐시에 key로 넣어둔다.
+ * 같은 key를 여러 셀이 동시에 요청하면 디코딩은 한 번만 하고 결과를 모든 셀에 넣어준다.
+ * 셀이 다른 position으로 재바인딩되면 그 셀의 이전 요청은 취소되고, 늦게 끝난 디코딩 결과가 잘못된 셀에 들어가지 않는다.
+ *
+ * BitmapPool을 설정하면 캐시에서도 빠지고 어느 셀에도 보이지 않는 비트맵을 풀에 돌려주고, 디코딩할 때 풀의 비트맵에 디코딩한다.
+ * 그래서 비트맵마다 캐시와 보여주고 있는 뷰들이 몇 군데에서 참조하는지 센다.
+ *
+ * ThumbnailDiskCache를 설정하면 디코딩하기 전에 디스크에 저장된 썸네일을 먼저 찾고, 디코딩한 썸네일은 디스크에도 저장한다.
+ *
+ * 디코딩을 제외한 모든 메소드는 UI 스레드에서만 불러야 한다.
+ */
+public final class ThumbnailLoader {
+	private static final String TAG = "ThumbnailLoader";
+
+	private static final int THREAD_COUNT = 2;
+
+	/** 앱이 쓸 수 있는 최대 메모리 중 캐시에 쓸 비율 */
+	private static final int DEFAULT_CACHE_DIVIDER = 8;
+
+	/**
+	 * 원본 이미지를 읽는 방법. 백그라운드 스레드에서 불린다.
+	 * 한 번은 inJustDecodeBounds로 크기만 읽고, 한 번은 inSampleSize를 정해서 실제로 디코딩하므로 두 번 불릴 수 있다.
+	 */
+	public static interface Decoder {
+		Bitmap decode(BitmapFactory.Options options);
+	}
+
+	private final int targetSize;
+	private final LruCache<Object, Bitmap> cache;
+	private final ExecutorService executor;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+	/** 디코딩 중인 요청들. 같은 key의 요청은 하나의 Task를 같이 기다린다. */
+	private final HashMap<Object, Task> tasks = new HashMap<Object, Task>();
+
+	/** 비트맵 -> 참조 수. 캐시에 들어 있으면 1, 보여주고 있는 뷰마다 1씩 더한다. 0이 되면 풀로 돌아간다. */
+	private final HashMap<Bitmap, Integer> refCounts = new HashMap<Bitmap, Integer>();
+
+	private volatile BitmapPool bitmapPool;
+	private volatile ThumbnailDiskCache diskCache;
+	private volatile Bitmap.Config preferredConfig = Bitmap.Config.ARGB_8888;
+
+	/**
+	 * @param targetSize 디코딩할 이미지의 목표 크기 (px). 가로, 세로 중 짧은 쪽이 이 크기보다 작아지지 않을 만큼만 줄인다.
+	 */
+	public ThumbnailLoader(int targetSize) {
+		this(targetSize, (int)(Runtime.getRuntime().maxMemory() / DEFAULT_CACHE_DIVIDER));
+	}
+
+	/**
+	 * @param maxCacheBytes 메모리 캐시에 들고 있을 비트맵의 최대 바이트 수
+	 */
+	public ThumbnailLoader(int targetSize, int maxCacheBytes) {
+		this.targetSize = targetSize;
+		this.cache = new LruCache<Object, Bitmap>(maxCacheBytes) {
+			@Override
+			protected int sizeOf(Object key, Bitmap value) {
+				return value.getByteCount();
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, Object key, Bitmap oldValue, Bitmap newValue) {
+				if (oldValue != newValue) {
+					releaseRef(oldValue);
+				}
+			}
+		};
+		this.executor = Executors.newFixedThreadPool(THREAD_COUNT, new BackgroundThreadFactory());
+	}
+
+	/**
+	 * @param bitmapPool 디코딩에 다시 쓸 비트맵을 꺼내고, 쓰지 않게 된 비트맵을 돌려줄 풀. null이면 매번 새로 할당한다.
+	 */
+	public void setBitmapPool(BitmapPool bitmapPool) {
+		this.bitmapPool = bitmapPool;
+	}
+
+	public BitmapPool getBitmapPool() {
+		return bitmapPool;
+	}
+
+	/**
+	 * @param diskCache 줄여서 디코딩한 썸네일을 저장해 둘 디스크 캐시. null이면 매번 원본을 디코딩한다.
+	 */
+	public void setDiskCache(ThumbnailDiskCache diskCache) {
+		this.diskCache = diskCache;
+	}
+
+	/**
+	 * @param config 디코딩할 때 쓸 Config. 불투명한 썸네일만 다룬다면 RGB_565로 메모리를 반으로 줄일 수 있다.
+	 *        이미 캐시된 썸네일에는 적용되지 않는다.
+	 */
+	public void setPreferredConfig(Bitmap.Config config) {
+		this.preferredConfig = config;
+	}
+
+	/**
+	 * 셀 크기의 리소스 이미지를 target에 넣는다. key는 리소스 ID다.
+	 */
+	public void loadResource(ImageView target, final Resources resources, final int resId) {
+		load(target, Integer.valueOf(resId), new Decoder() {
+			@Override
+			public Bitmap decode(BitmapFactory.Options options) {
+				return BitmapFactory.decodeResource(resources, resId, options);
+			}
+		});
+	}
+
+	/**
+	 * 셀 크기의 파일 이미지를 target에 넣는다. key는 파일 경로다.
+	 */
+	public void loadFile(ImageView target, final String path) {
+		load(target, path, new Decoder() {
+			@Override
+			public Bitmap decode(BitmapFactory.Options options) {
+				return BitmapFactory.decodeFile(path, options);
+			}
+		});
+	}
+
+	/**
+	 * key의 썸네일을 target에 넣는다. 캐시에 있으면 바로 넣고, 없으면 비워둔 채로 디코딩을 요청한다.
+	 * target이 다른 key를 기다리고 있었으면 그 요청은 취소된다.
+	 */
+	public void load(ImageView target, Object key, Decoder decoder) {
+		Binding binding = getBinding(target);
+		if (binding == null) {
+			binding = new Binding();
+			target.setTag(R.id.thumbnail_binding, binding);
+		}
+
+		detachFromTask(target, binding);
+		releaseBitmap(target, binding);
+
+		binding.key = key;
+		binding.decoder = decoder;
+
+		Bitmap bitmap = cache.get(key);
+		if (bitmap != null) {
+			show(target, binding, bitmap);
+			return;
+		}
+
+		Task task = tasks.get(key);
+		if (task == null) {
+			task = new Task(key, decoder);
+			tasks.put(key, task);
+			task.future = executor.submit(task);
+		}
+
+		task.targets.add(target);
+	}
+
+	/**
+	 * target이 기다리고 있는 요청을 취소한다. 같은 key를 기다리는 다른 셀이 없고 아직 디코딩이 시작되지 않았으면 디코딩도 하지 않는다.
+	 * 이미 보여주고 있는 썸네일은 그대로 둔다.
+	 */
+	public void cancel(ImageView target) {
+		Binding binding = getBinding(target);
+		if (binding == null) {
+			return;
+		}
+
+		detachFromTask(target, binding);
+		binding.key = null;
+		binding.decoder = null;
+	}
+
+	/**
+	 * target이 보여주던 썸네일을 내려놓는다. 뷰가 화면에서 떨어질 때 부른다.
+	 * 캐시에서도 빠진 비트맵이면 풀로 돌아간다. 어떤 썸네일이었는지는 기억해두므로 restore()로 다시 넣을 수 있다.
+	 */
+	public void release(ImageView target) {
+		Binding binding = getBinding(target);
+		if (binding == null) {
+			return;
+		}
+
+		detachFromTask(target, binding);
+		releaseBitmap(target, binding);
+	}
+
+	/**
+	 * release()로 내려놓았던 썸네일을 다시 넣는다. 뷰가 다시 화면에 붙을 때 부른다.
+	 */
+	public void restore(ImageView target) {
+		Binding binding = getBinding(target);
+		if (binding == null || binding.key == null || binding.bitmap != null) {
+			return;
+		}
+
+		Task task = tasks.get(binding.key);
+		if (task != null && task.targets.contains(target)) {
+			return;
+		}
+
+		load(target, binding.key, binding.decoder);
+	}
+
+	/**
+	 * 메모리가 부족할 때 캐시와 풀을 비운다. 셀에 보이고 있는 비트맵은 그대로 둔다.
+	 */
+	public void clearCache() {
+		cache.evictAll();
+
+		BitmapPool pool = bitmapPool;
+		if (pool != null) {
+			pool.clear();
+		}
+	}
+
+	/**
+	 * 디코딩 스레드를 멈추고 디스크 캐시를 닫는다. 더 이상 이 객체를 쓰지 않을 때 부른다.
+	 *
+	 * 디스크 캐시는 디코딩 스레드에서 닫는다. 다른 디코딩 스레드가 compaction 중이어도 UI 스레드는 기다리지 않는다.
+	 * 아직 시작하지 않은 디코딩은 취소하고, 이미 디코딩 중인 것은 끝까지 하지만 닫힌 디스크 캐시는 다시 열리지 않는다.
+	 */
+	public void shutdown() {
+		if (executor.isShutdown()) {
+			return;
+		}
+
+		for (Task task : tasks.values()) {
+			task.future.cancel(false);
+		}
+		tasks.clear();
+		clearCache();
+
+		final ThumbnailDiskCache disk = diskCache;
+		if (disk != null) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					disk.close();
+				}
+			});
+		}
+
+		executor.shutdown();
+	}
+
+	private static Binding getBinding(ImageView target) {
+		return (Binding)target.getTag(R.id.thumbnail_binding);
+	}
+
+	private void detachFromTask(ImageView target, Binding binding) {
+		if (binding.key == null) {
+			return;
+		}
+
+		Task task = tasks.get(binding.key);
+		if (task == null) {
+			return;
+		}
+
+		task.targets.remove(target);
+
+		// 이미 디코딩 중이면 끝까지 하고 결과는 캐시에만 넣는다.
+		if (task.targets.isEmpty() && task.future.cancel(false)) {
+			tasks.remove(binding.key);
+		}
+	}
+
+	private void show(ImageView target, Binding binding, Bitmap bitmap) {
+		acquireRef(bitmap);
+
+		binding.bitmap = bitmap;
+		target.setImageBitmap(bitmap);
+	}
+
+	/**
+	 * 이전 position의 이미지가 남아 보이지 않도록 비우고, 보여주던 비트맵의 참조 수를 줄인다.
+	 */
+	private void releaseBitmap(ImageView target, Binding binding) {
+		target.setImageDrawable(null);
+
+		Bitmap bitmap = binding.bitmap;
+		if (bitmap == null) {
+			return;
+		}
+
+		binding.bitmap = null;
+		releaseRef(bitmap);
+	}
+
+	private void acquireRef(Bitmap bitmap) {
+		Integer count = refCounts.get(bitmap);
+		refCounts.put(bitmap, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * 참조 수를 줄이고, 캐시에도 없고 어느 뷰에도 보이지 않게 되었으면 풀로 돌려준다.
+	 */
+	private void releaseRef(Bitmap bitmap) {
+		Integer count = refCounts.get(bitmap);
+		if (count == null) {
+			return;
+		}
+
+		if (count > 1) {
+			refCounts.put(bitmap, count - 1);
+			return;
+		}
+
+		refCounts.remove(bitmap);
+
+		BitmapPool pool = bitmapPool;
+		if (pool != null) {
+			pool.put(bitmap);
+		}
+	}
+
+	/**
+	 * UI 스레드에서 불린다. 아직 이 key를 기다리는 셀에 넣어주고 캐시에 넣는다.
+	 * 캐시보다 큰 비트맵은 넣자마자 빠지므로, 풀로 가지 않도록 셀에 먼저 넣고 캐시의 참조도 먼저 센다.
+	 */
+	private void onTaskFinished(Task task, Bitmap bitmap) {
+		if (tasks.get(task.key) == task) {
+			tasks.remove(task.key);
+		}
+
+		if (bitmap == null) {
+			return;
+		}
+
+		for (int i = 0; i < task.targets.size(); i++) {
+			ImageView target = task.targets.get(i);
+			Binding binding = getBinding(target);
+			if (binding != null && task.key.equals(binding.key) && binding.bitmap == null) {
+				show(target, binding, bitmap);
+			}
+		}
+		task.targets.clear();
+
+		acquireRef(bitmap);
+		cache.put(task.key, bitmap);
+	}
+
+	/**
+	 * 백그라운드 스레드에서 불린다. 디스크 캐시에 있으면 픽셀만 복사하고, 없으면 디코딩해서 디스크 캐시에 저장한다.
+	 */
+	private Bitmap loadBitmap(Object key, Decoder decoder) {
+		ThumbnailDiskCache disk = diskCache;
+		if (disk == null) {
+			return decodeSampled(decoder);
+		}
+
+		// 셀 크기가 바뀌면 다른 썸네일이다.
+		String diskKey = key + "@" + targetSize;
+
+		Bitmap bitmap = disk.get(diskKey, bitmapPool);
+		if (bitmap != null) {
+			return bitmap;
+		}
+
+		bitmap = decodeSampled(decoder);
+		if (bitmap != null) {
+			disk.put(diskKey, bitmap);
+		}
+
+		return bitmap;
+	}
+
+	/**
+	 * 백그라운드 스레드에서 불린다. 먼저 크기만 읽고, 짧은 쪽이 targetSize보다 작아지지 않는 가장 큰 2의 거듭제곱으로 줄여서 디코딩한다.
+	 */
+	private Bitmap decodeSampled(Decoder decoder) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		decoder.decode(options);
+
+		int sampleSize = 1;
+		if (targetSize > 0 && options.outWidth > 0 && options.outHeight > 0) {
+			while (options.outWidth / (sampleSize * 2) >= targetSize && options.outHeight / (sampleSize * 2) >= targetSize) {
+				sampleSize *= 2;
+			}
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		options.inPreferredConfig = preferredConfig;
+
+		BitmapPool pool = bitmapPool;
+		if (pool == null) {
+			return decoder.decode(options);
+		}
+
+		// inBitmap에 디코딩하려면 mutable이어야 한다. KitKat 전에는 inSampleSize가 1일 때만 다시 쓸 수 있다.
+		options.inMutable = true;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT || sampleSize == 1) {
+			int width = (options.outWidth + sampleSize - 1) / sampleSize;
+			int height = (options.outHeight + sampleSize - 1) / sampleSize;
+			options.inBitmap = pool.get(width, height, preferredConfig);
+		}
+
+		if (options.inBitmap == null) {
+			return decoder.decode(options);
+		}
+
+		try {
+			return decoder.decode(options);
+		} catch (IllegalArgumentException e) {
+			// 포맷이나 크기가 맞지 않아 다시 쓸 수 없었다. 꺼낸 비트맵은 돌려주고 새로 할당한다.
+			pool.put(options.inBitmap);
+			options.inBitmap = null;
+			return decoder.decode(options);
+		}
+	}
+
+	/**
+	 * 뷰마다 붙여두는 상태. 기다리거나 보여주고 있는 썸네일의 key와, 지금 보여주고 있는 비트맵
+	 */
+	private static final class Binding {
+		Object key;
+		Decoder decoder;
+		Bitmap bitmap;
+	}
+
+	private final class Task implements Runnable {
+		final Object key;
+		final Decoder decoder;
+
+		/** 이 key를 기다리는 셀들. UI 스레드에서만 접근한다. */
+		final ArrayList<ImageView> targets = new ArrayList<ImageView>(2);
+
+		Future<?> future;
+
+		Task(Object key, Decoder decoder) {
+			this.key = key;
+			this.decoder = decoder;
+		}
+
+		/**
+		 * 실패해도 onTaskFinished()는 반드시 불려서 tasks에서 빠져야 한다. 그렇지 않으면 이 key를 다시 load()해도
+		 * 끝나지 않는 Task를 기다리게 된다.
+		 */
+		@Override
+		public void run() {
+			Bitmap bitmap = null;
+			try {
+				bitmap = loadBitmap(key, decoder);
+			} catch (OutOfMemoryError e) {
+				Log.w(TAG, "out of memory while decoding " + key);
+			} catch (RuntimeException e) {
+				Log.w(TAG, "failed to decode " + key, e);
+			} finally {
+				final Bitmap result = bitmap;
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onTaskFinished(Task.this, result);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * 디코딩 스레드가 UI 스레드와 CPU를 두고 경쟁하지 않도록 background 우선순위로 만든다.
+	 */
+	private static final class BackgroundThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			return new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+					runnable.run();
+				}
+			}, TAG + "-" + count.incrementAndGet());
+		}
+	}
+}